@@ -2,6 +2,8 @@ package com.balabenute.demo_park_api.config;
 
 import com.balabenute.demo_park_api.jwt.JwtAuthenticationEntryPoint;
 import com.balabenute.demo_park_api.jwt.JwtAuthorizationFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,8 +12,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
@@ -30,17 +30,24 @@ public class SpringSecurityConfig {
     };
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${estacionamento.ocupacao.publica:false}") boolean ocupacaoPublica) throws Exception {
         return http
                 .csrf(csrf -> csrf.disable())
                 .formLogin(form -> form.disable())
                 .httpBasic(basic -> basic.disable())
-                .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.POST, "api/v1/usuarios").permitAll()
-                        .requestMatchers(HttpMethod.POST, "api/v1/auth").permitAll()
-                        .requestMatchers(DOCUMENTATION_OPENAPI).permitAll()
-                        .anyRequest().authenticated()
-                ).sessionManagement(
+                .authorizeHttpRequests(auth -> {
+                    auth
+                            // O dispatch assíncrono que conclui respostas em streaming já foi autorizado na requisição original.
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                            .requestMatchers(HttpMethod.POST, "api/v1/usuarios").permitAll()
+                            .requestMatchers(HttpMethod.POST, "api/v1/auth", "api/v1/auth/refresh", "api/v1/auth/logout").permitAll()
+                            .requestMatchers(DOCUMENTATION_OPENAPI).permitAll();
+                    if (ocupacaoPublica) {
+                        auth.requestMatchers(HttpMethod.GET, "api/v1/vagas/ocupacao").permitAll();
+                    }
+                    auth.anyRequest().authenticated();
+                }).sessionManagement(
                         session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 ).addFilterBefore(
                         jwtAuthorizationFilter(), UsernamePasswordAuthenticationFilter.class
@@ -55,11 +62,6 @@ public class SpringSecurityConfig {
         return new JwtAuthorizationFilter();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
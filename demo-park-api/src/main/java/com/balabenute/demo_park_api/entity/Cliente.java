@@ -2,6 +2,7 @@ package com.balabenute.demo_park_api.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -30,6 +31,11 @@ public class Cliente {
     @OneToOne
     @JoinColumn(name = "id_usuario", nullable = false)
     private Usuario usuario;
+    // Total de estacionamentos completos, usado no desconto de fidelidade. Só é alterado por
+    // UPDATEs atômicos do ClienteRepository, nunca pelo dirty checking da entidade.
+    @ColumnDefault("0")
+    @Column(name = "total_estacionamentos", nullable = false, updatable = false)
+    private long totalEstacionamentos;
 
     @CreatedDate
     @Column(name = "data_criacao")
@@ -17,7 +17,8 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "clientes_tem_vagas")
+@Table(name = "clientes_tem_vagas", indexes = @Index(name = "idx_clientes_tem_vagas_cliente_entrada",
+        columnList = "id_cliente, data_entrada, id"))
 @EntityListeners(AuditingEntityListener.class)
 public class ClienteVaga {
 
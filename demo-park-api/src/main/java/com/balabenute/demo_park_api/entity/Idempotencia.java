@@ -0,0 +1,53 @@
+package com.balabenute.demo_park_api.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Registro de uma operação já executada para uma Idempotency-Key. É sempre inserido, nunca
+// atualizado: uma chave repetida viola a chave primária e identifica a requisição duplicada.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotencias")
+public class Idempotencia implements Persistable<String> {
+
+    @Id
+    @Column(name = "chave", nullable = false, length = 150)
+    private String chave;
+    @Column(name = "referencia", nullable = false, length = 15)
+    private String referencia;
+    // SHA-256 (Base64) do corpo da requisição que usou a chave.
+    @Column(name = "hash_requisicao", length = 44)
+    private String hashRequisicao;
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    @Override
+    public String getId() {
+        return chave;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Idempotencia that = (Idempotencia) o;
+        return Objects.equals(chave, that.chave);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(chave);
+    }
+}
@@ -0,0 +1,45 @@
+package com.balabenute.demo_park_api.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Revogação de tokens de acesso: de um único token (jti) ou de todos os tokens de um usuário
+// emitidos antes de data_revogacao. Pode ser removida depois de data_expiracao, quando os tokens
+// que ela revoga já expiraram.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revogacoes_token", indexes = @Index(name = "idx_revogacoes_token_data_revogacao",
+        columnList = "data_revogacao"))
+public class RevogacaoToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "jti", unique = true, length = 36)
+    private String jti;
+    @Column(name = "id_usuario")
+    private Long usuarioId;
+    @Column(name = "data_revogacao", nullable = false)
+    private LocalDateTime dataRevogacao;
+    @Column(name = "data_expiracao", nullable = false)
+    private LocalDateTime dataExpiracao;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RevogacaoToken that = (RevogacaoToken) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
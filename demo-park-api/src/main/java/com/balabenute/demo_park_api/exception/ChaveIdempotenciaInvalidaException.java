@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class ChaveIdempotenciaInvalidaException extends RuntimeException {
+
+    public ChaveIdempotenciaInvalidaException(String message) {
+        super(message);
+    }
+}
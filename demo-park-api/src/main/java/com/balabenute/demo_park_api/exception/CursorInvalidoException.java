@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class CursorInvalidoException extends RuntimeException {
+
+    public CursorInvalidoException(String message) {
+        super(message);
+    }
+}
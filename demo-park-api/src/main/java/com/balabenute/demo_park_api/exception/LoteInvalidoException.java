@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class LoteInvalidoException extends RuntimeException {
+
+    public LoteInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class MesNaoEncerradoException extends RuntimeException {
+
+    public MesNaoEncerradoException(String message) {
+        super(message);
+    }
+}
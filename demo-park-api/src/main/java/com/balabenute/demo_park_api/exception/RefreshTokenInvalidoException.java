@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class RefreshTokenInvalidoException extends RuntimeException {
+
+    public RefreshTokenInvalidoException(String message) {
+        super(message);
+    }
+}
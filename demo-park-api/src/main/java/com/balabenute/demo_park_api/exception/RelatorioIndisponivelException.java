@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class RelatorioIndisponivelException extends RuntimeException {
+
+    public RelatorioIndisponivelException(String message) {
+        super(message);
+    }
+}
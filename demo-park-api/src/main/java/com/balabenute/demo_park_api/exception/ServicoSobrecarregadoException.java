@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    public ServicoSobrecarregadoException(String message) {
+        super(message);
+    }
+}
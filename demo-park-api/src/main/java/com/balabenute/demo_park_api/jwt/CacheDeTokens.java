@@ -0,0 +1,60 @@
+package com.balabenute.demo_park_api.jwt;
+
+import com.balabenute.demo_park_api.utils.CacheComExpiracao;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims de tokens já verificados, para que cada token seja decodificado e tenha a assinatura
+ * conferida uma única vez durante a sua validade, e não a cada requisição.
+ * <p>
+ * A chave é o SHA-256 do token, então o token em si não fica em memória. Cada entrada vale até a
+ * expiração do próprio token e o total é limitado por {@code tamanho-maximo} (0 desativa o cache).
+ */
+@Component
+public class CacheDeTokens {
+
+    private final CacheComExpiracao<String, Claims> claims;
+    private final int tamanhoMaximo;
+
+    public CacheDeTokens(@Value("${estacionamento.jwt.cache.tamanho-maximo:10000}") int tamanhoMaximo) {
+        this.claims = new CacheComExpiracao<>(tamanhoMaximo);
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    /**
+     * Devolve as claims do token, verificando-o apenas se ainda não estiver no cache, ou
+     * {@code null} se ele for inválido ou estiver expirado.
+     */
+    public Claims obter(String token) {
+        if (tamanhoMaximo <= 0) {
+            return JwtUtils.getClaimsFromToken(token);
+        }
+        return claims.obter(hash(token), chave -> JwtUtils.getClaimsFromToken(token), CacheDeTokens::validade);
+    }
+
+    // Nanossegundos até a expiração do token; tokens sem expiração não são guardados.
+    private static long validade(Claims claims) {
+        Date expiracao = claims.getExpiration();
+        return expiracao != null
+                ? TimeUnit.MILLISECONDS.toNanos(expiracao.getTime() - System.currentTimeMillis())
+                : 0;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
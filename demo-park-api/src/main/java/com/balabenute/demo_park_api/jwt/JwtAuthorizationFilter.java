@@ -1,11 +1,14 @@
 package com.balabenute.demo_park_api.jwt;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.balabenute.demo_park_api.service.RevogacaoDeTokensService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +22,14 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtUserDetailsService detailsService;
+    @Autowired
+    private CacheDeTokens cacheDeTokens;
+    @Autowired
+    private RevogacaoDeTokensService revogacaoDeTokensService;
+    // Com true o usuário vem das claims assinadas do token; com false é carregado pelo username,
+    // passando pelo cache de usuários.
+    @Value("${estacionamento.jwt.usuario-das-claims:true}")
+    private boolean usuarioDasClaims;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -31,21 +42,29 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             return;
         }
 
-        if (!JwtUtils.isTokenValid(token)) {
+        Claims claims = cacheDeTokens.obter(token);
+        if (claims == null) {
             log.warn("JWT Token está inválido ou expirado.");
             filterChain.doFilter(request, response);
             return;
         }
 
-        String username = JwtUtils.getUsernameFromToken(token);
+        if (revogacaoDeTokensService.revogado(claims)) {
+            log.warn("JWT Token revogado.");
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        toAuthentication(request, username);
+        toAuthentication(request, claims);
 
         filterChain.doFilter(request, response);
     }
 
-    private void toAuthentication(HttpServletRequest request, String username) {
-        UserDetails userDetails = detailsService.loadUserByUsername(username);
+    private void toAuthentication(HttpServletRequest request, Claims claims) {
+        UserDetails userDetails = usuarioDasClaims ? JwtUserDetails.of(claims) : null;
+        if (userDetails == null) {
+            userDetails = detailsService.loadUserByUsernameEmCache(claims.getSubject());
+        }
 
         UsernamePasswordAuthenticationToken authenticationToken = UsernamePasswordAuthenticationToken
                 .authenticated(userDetails, null, userDetails.getAuthorities());
@@ -1,24 +1,44 @@
 package com.balabenute.demo_park_api.jwt;
 
 import com.balabenute.demo_park_api.entity.Usuario;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.User;
 
 
 public class JwtUserDetails extends User {
 
-    private Usuario usuario;
+    private final Long id;
+    private final String role;
 
     public JwtUserDetails(Usuario usuario) {
-        super(usuario.getUsername(), usuario.getPassword(), AuthorityUtils.createAuthorityList(usuario.getRole().name()));
-        this.usuario = usuario;
+        this(usuario.getId(), usuario.getUsername(), usuario.getPassword(), usuario.getRole().name());
+    }
+
+    private JwtUserDetails(Long id, String username, String password, String role) {
+        super(username, password, AuthorityUtils.createAuthorityList(role));
+        this.id = id;
+        this.role = role;
+    }
+
+    /**
+     * Monta o usuário a partir das claims assinadas do token, sem consultar o banco. Devolve
+     * {@code null} para tokens emitidos sem a claim de id, que precisam carregar o usuário.
+     */
+    public static JwtUserDetails of(Claims claims) {
+        Long id = claims.get(JwtUtils.CLAIM_ID, Long.class);
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        if (id == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new JwtUserDetails(id, claims.getSubject(), "", JwtUtils.ROLE_PREFIX + role);
     }
 
     public Long getId() {
-        return this.usuario.getId();
+        return this.id;
     }
 
     public String getRole() {
-        return this.usuario.getRole().name();
+        return this.role;
     }
 }
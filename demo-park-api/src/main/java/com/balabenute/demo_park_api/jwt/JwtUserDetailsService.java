@@ -1,6 +1,7 @@
 package com.balabenute.demo_park_api.jwt;
 
 import com.balabenute.demo_park_api.entity.Usuario;
+import com.balabenute.demo_park_api.service.RefreshTokenService;
 import com.balabenute.demo_park_api.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,14 +14,34 @@ import org.springframework.stereotype.Service;
 public class JwtUserDetailsService implements UserDetailsService {
 
     private final UsuarioService usuarioService;
+    private final RefreshTokenService refreshTokenService;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Usuario usuario = usuarioService.buscarPorUsername(username);
         return new JwtUserDetails(usuario);
     }
 
+    public UserDetails loadUserByUsernameEmCache(String username) {
+        return new JwtUserDetails(usuarioService.buscarPorUsernameEmCache(username));
+    }
+
     public JwtToken getTokenAuthenticated(String username) {
-        Usuario.Role role = usuarioService.buscarRolePorUsername(username);
-        return JwtUtils.createToken(username, role.name().substring("ROLE_".length()));
+        Usuario usuario = usuarioService.buscarPorUsername(username);
+        JwtToken token = createToken(usuario);
+        token.setRefreshToken(refreshTokenService.emitir(usuario));
+        return token;
+    }
+
+    public JwtToken getTokenRenovado(String refreshToken) {
+        RefreshTokenService.Renovacao renovacao = refreshTokenService.renovar(refreshToken);
+        JwtToken token = createToken(renovacao.usuario());
+        token.setRefreshToken(renovacao.refreshToken());
+        return token;
+    }
+
+    private static JwtToken createToken(Usuario usuario) {
+        return JwtUtils.createToken(usuario.getId(), usuario.getUsername(),
+                usuario.getRole().name().substring(JwtUtils.ROLE_PREFIX.length()));
     }
 }
@@ -2,16 +2,19 @@ package com.balabenute.demo_park_api.jwt;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.UUID;
 
 @Slf4j
 public class JwtUtils {
@@ -22,12 +25,18 @@ public class JwtUtils {
     public static final long EXPIRE_DAYS = 0;
     public static final long EXPIRE_HOURS = 0;
     public static final long EXPIRE_MINUTES = 30;
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ROLE = "role";
+    public static final String ROLE_PREFIX = "ROLE_";
+    // O iat tem precisão de segundos; a revogação por usuário compara o instante de emissão em milissegundos.
+    public static final String CLAIM_EMISSAO = "emissao";
+    public static final Duration VALIDADE = Duration.ofDays(EXPIRE_DAYS).plusHours(EXPIRE_HOURS).plusMinutes(EXPIRE_MINUTES);
 
-    private JwtUtils(){
-    }
+    // A chave e o parser são imutáveis e thread-safe: criados uma vez em vez de a cada token.
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private static final JwtParser PARSER = Jwts.parser().verifyWith(KEY).build();
 
-    private static Key generateKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private JwtUtils(){
     }
 
     private static Date toExpireDate(Date start) {
@@ -36,47 +45,44 @@ public class JwtUtils {
         return Date.from(end.atZone(ZoneId.systemDefault()).toInstant());
     }
 
-    public static JwtToken createToken(String username, String role) {
+    public static JwtToken createToken(Long id, String username, String role) {
         Date issuedAt = new Date();
         Date limit = toExpireDate(issuedAt);
 
         String token = Jwts.builder()
                 .setHeaderParam("typ", "JWT")
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(issuedAt)
                 .setExpiration(limit)
-                .signWith(generateKey(), SignatureAlgorithm.HS256)
-                .claim("role", role)
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .claim(CLAIM_ID, id)
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_EMISSAO, issuedAt.getTime())
                 .compact();
 
-        return new JwtToken(token);
+        return new JwtToken(token, null);
     }
 
-    private static Claims getClaimsFromToken(String token) {
+    /**
+     * Valida assinatura e expiração e devolve as claims do token, ou {@code null} se ele for inválido.
+     */
+    public static Claims getClaimsFromToken(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(generateKey()).build()
-                    .parseClaimsJws(refactorToken(token)).getBody();
-        } catch (JwtException ex) {
+            return PARSER.parseSignedClaims(refactorToken(token)).getPayload();
+        } catch (JwtException | IllegalArgumentException ex) {
             log.error(String.format("Token invalido %s", ex.getMessage()));
         }
         return null;
     }
 
     public static String getUsernameFromToken(String token) {
-        return getClaimsFromToken(token).getSubject();
+        Claims claims = getClaimsFromToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public static boolean isTokenValid(String token) {
-        try {
-            Jwts.parser()
-                    .setSigningKey(generateKey()).build()
-                    .parseClaimsJws(refactorToken(token));
-            return true;
-        } catch (JwtException ex) {
-            log.error(String.format("Token invalido %s", ex.getMessage()));
-        }
-        return false;
+        return getClaimsFromToken(token) != null;
     }
 
     private static String refactorToken(String token) {
@@ -2,11 +2,16 @@ package com.balabenute.demo_park_api.repository;
 
 import com.balabenute.demo_park_api.entity.Cliente;
 import com.balabenute.demo_park_api.repository.projection.ClienteProjection;
+import com.balabenute.demo_park_api.repository.projection.TotalPorCpfProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
@@ -14,7 +19,38 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     @Query("select c from Cliente c")
     Page<ClienteProjection> findAllPageable(Pageable pageable);
 
+    // Sem count(*): o Spring Data busca size + 1 registros só para saber se existe a próxima página.
+    @Query("select c from Cliente c")
+    Slice<ClienteProjection> findAllSlice(Pageable pageable);
+
+    // Percorre todos os clientes em lotes por chave (id), com o mesmo custo em qualquer ponto.
+    @Query("select c.id as id, c.nome as nome, c.cpf as cpf from Cliente c where c.id > :id order by c.id")
+    List<ClienteProjection> findLoteAposId(Long id, Pageable pageable);
+
     Cliente findByUsuarioId(Long id);
 
     Optional<Cliente> findByCpf(String cpf);
+
+    List<Cliente> findAllByCpfIn(Collection<String> cpfs);
+
+    @Modifying
+    @Query("update Cliente c set c.totalEstacionamentos = c.totalEstacionamentos + :quantidade where c.id in :ids")
+    int incrementarTotalEstacionamentos(Collection<Long> ids, long quantidade);
+
+    @Query("select c.cpf as cpf, c.totalEstacionamentos as total from Cliente c where c.id in :ids")
+    List<TotalPorCpfProjection> findTotalEstacionamentosByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("update Cliente c set c.totalEstacionamentos = " +
+            "(select count(cv) from ClienteVaga cv where cv.cliente = c and cv.dataSaida is not null)")
+    int recalcularTotalEstacionamentos();
+
+    // Clientes com estacionamentos completos e contador zerado ficaram com o valor padrão da coluna,
+    // criada depois dos registros.
+    @Modifying
+    @Query("update Cliente c set c.totalEstacionamentos = " +
+            "(select count(cv) from ClienteVaga cv where cv.cliente = c and cv.dataSaida is not null) " +
+            "where c.totalEstacionamentos = 0 " +
+            "and exists (select cv.id from ClienteVaga cv where cv.cliente = c and cv.dataSaida is not null)")
+    int preencherTotalEstacionamentosAusentes();
 }
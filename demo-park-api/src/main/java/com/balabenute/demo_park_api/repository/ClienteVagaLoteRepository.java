@@ -0,0 +1,17 @@
+package com.balabenute.demo_park_api.repository;
+
+import com.balabenute.demo_park_api.entity.ClienteVaga;
+
+import java.util.List;
+
+public interface ClienteVagaLoteRepository {
+
+    // Insere os check-ins com batch JDBC; o Hibernate não agrupa inserts de entidades com id IDENTITY.
+    void inserirEmLote(List<ClienteVaga> estacionamentos);
+
+    // Grava saída, valor e desconto com um UPDATE condicional (data_saida ainda nula) por recibo e
+    // devolve, para cada estacionamento, se o check-out foi de fato feito por esta transação.
+    boolean[] finalizarEmLote(List<ClienteVaga> estacionamentos);
+
+    void atualizarDescontoEmLote(List<ClienteVaga> estacionamentos);
+}
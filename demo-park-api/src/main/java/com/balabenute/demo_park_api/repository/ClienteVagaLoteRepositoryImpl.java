@@ -0,0 +1,87 @@
+package com.balabenute.demo_park_api.repository;
+
+import com.balabenute.demo_park_api.entity.ClienteVaga;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ClienteVagaLoteRepositoryImpl implements ClienteVagaLoteRepository {
+
+    private static final String INSERIR_SQL = "insert into clientes_tem_vagas " +
+            "(numero_recibo, placa, marca, modelo, cor, data_entrada, id_cliente, id_vaga, " +
+            "data_criacao, data_modificacao, criado_por, modificado_por) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FINALIZAR_SQL = "update clientes_tem_vagas " +
+            "set data_saida = ?, valor = ?, desconto = ?, data_modificacao = ?, modificado_por = ? " +
+            "where numero_recibo = ? and data_saida is null";
+    private static final String ATUALIZAR_DESCONTO_SQL = "update clientes_tem_vagas " +
+            "set desconto = ?, data_modificacao = ?, modificado_por = ? where numero_recibo = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    @Override
+    public void inserirEmLote(List<ClienteVaga> estacionamentos) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        String usuario = usuarioAtual();
+        jdbcTemplate.batchUpdate(INSERIR_SQL, estacionamentos, estacionamentos.size(), (ps, cv) -> {
+            ps.setString(1, cv.getRecibo());
+            ps.setString(2, cv.getPlaca());
+            ps.setString(3, cv.getMarca());
+            ps.setString(4, cv.getModelo());
+            ps.setString(5, cv.getCor());
+            ps.setTimestamp(6, Timestamp.valueOf(cv.getDataEntrada()));
+            ps.setLong(7, cv.getCliente().getId());
+            ps.setLong(8, cv.getVaga().getId());
+            ps.setTimestamp(9, agora);
+            ps.setTimestamp(10, agora);
+            ps.setString(11, usuario);
+            ps.setString(12, usuario);
+        });
+    }
+
+    @Override
+    public boolean[] finalizarEmLote(List<ClienteVaga> estacionamentos) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        String usuario = usuarioAtual();
+        int[][] linhas = jdbcTemplate.batchUpdate(FINALIZAR_SQL, estacionamentos, estacionamentos.size(), (ps, cv) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(cv.getDataSaida()));
+            ps.setBigDecimal(2, cv.getValor());
+            ps.setBigDecimal(3, cv.getDesconto());
+            ps.setTimestamp(4, agora);
+            ps.setString(5, usuario);
+            ps.setString(6, cv.getRecibo());
+        });
+        boolean[] finalizados = new boolean[estacionamentos.size()];
+        int i = 0;
+        for (int[] lote : linhas) {
+            for (int linha : lote) {
+                finalizados[i++] = linha == 1;
+            }
+        }
+        return finalizados;
+    }
+
+    @Override
+    public void atualizarDescontoEmLote(List<ClienteVaga> estacionamentos) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        String usuario = usuarioAtual();
+        jdbcTemplate.batchUpdate(ATUALIZAR_DESCONTO_SQL, estacionamentos, estacionamentos.size(), (ps, cv) -> {
+            ps.setBigDecimal(1, cv.getDesconto());
+            ps.setTimestamp(2, agora);
+            ps.setString(3, usuario);
+            ps.setString(4, cv.getRecibo());
+        });
+    }
+
+    private String usuarioAtual() {
+        Optional<String> auditor = auditorAware.getCurrentAuditor();
+        return auditor != null ? auditor.orElse(null) : null;
+    }
+}
@@ -2,18 +2,74 @@ package com.balabenute.demo_park_api.repository;
 
 import com.balabenute.demo_park_api.entity.ClienteVaga;
 import com.balabenute.demo_park_api.repository.projection.ClienteVagaProjection;
+import com.balabenute.demo_park_api.repository.projection.EstacionamentoAbertoProjection;
+import com.balabenute.demo_park_api.repository.projection.VersaoHistoricoProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface ClienteVagaRepository extends JpaRepository<ClienteVaga, Long> {
-    Optional<ClienteVaga> findByReciboAndDataSaidaIsNull(String recibo);
+public interface ClienteVagaRepository extends JpaRepository<ClienteVaga, Long>, ClienteVagaLoteRepository {
 
-    long countByClienteCpfAndDataSaidaIsNotNull(String cpf);
+    String SELECT_ABERTOS = "select cv.recibo as recibo, cv.placa as placa, cv.marca as marca, cv.modelo as modelo, " +
+            "cv.cor as cor, cv.dataEntrada as dataEntrada, cv.cliente.id as clienteId, cv.cliente.cpf as clienteCpf, " +
+            "cv.vaga.id as vagaId, cv.vaga.codigo as vagaCodigo from ClienteVaga cv where cv.dataSaida is null";
+
+    @Query(SELECT_ABERTOS)
+    List<EstacionamentoAbertoProjection> findAllAbertos();
+
+    @Query(SELECT_ABERTOS + " and cv.recibo in :recibos")
+    List<EstacionamentoAbertoProjection> findAllAbertosByReciboIn(Collection<String> recibos);
+
+    Optional<ClienteVaga> findByRecibo(String recibo);
+
+    boolean existsByReciboAndDataSaidaIsNull(String recibo);
+
+    // Recibos do gerador têm 13 caracteres em base 36, e a ordem alfabética é a ordem numérica.
+    @Query("select max(cv.recibo) from ClienteVaga cv where length(cv.recibo) = 13")
+    Optional<String> findUltimoRecibo();
 
     Page<ClienteVagaProjection> findAllByClienteCpf(String cpf, Pageable pageable);
 
     Page<ClienteVagaProjection> findAllByClienteUsuarioId(Long id, Pageable pageable);
+
+    Slice<ClienteVagaProjection> findSliceByClienteCpf(String cpf, Pageable pageable);
+
+    Slice<ClienteVagaProjection> findSliceByClienteUsuarioId(Long id, Pageable pageable);
+
+    // Muda a cada check-in (total) e check-out (data_modificacao) do cliente.
+    @Query("select count(cv) as total, max(coalesce(cv.dataModificacao, cv.dataEntrada)) as ultimaAlteracao " +
+            "from ClienteVaga cv where cv.cliente.cpf = :cpf")
+    VersaoHistoricoProjection findVersaoHistoricoByClienteCpf(String cpf);
+
+    // Paginação por chave (data_entrada, id): cada página parte do último registro da anterior e usa
+    // o índice idx_clientes_tem_vagas_cliente_entrada, com o mesmo custo em qualquer profundidade.
+    String SELECT_HISTORICO = "select cv.id as id, cv.placa as placa, cv.marca as marca, cv.modelo as modelo, " +
+            "cv.cor as cor, cv.cliente.cpf as clienteCpf, cv.recibo as recibo, cv.dataEntrada as dataEntrada, " +
+            "cv.dataSaida as dataSaida, cv.vaga.codigo as vagaCodigo, cv.valor as valor, cv.desconto as desconto " +
+            "from ClienteVaga cv ";
+    String APOS_CURSOR = " and (cv.dataEntrada > :dataEntrada or (cv.dataEntrada = :dataEntrada and cv.id > :id))" +
+            " order by cv.dataEntrada, cv.id";
+
+    @Query(SELECT_HISTORICO + "where cv.cliente.cpf = :cpf order by cv.dataEntrada, cv.id")
+    List<ClienteVagaProjection> findHistoricoByClienteCpf(String cpf, Pageable limite);
+
+    @Query(SELECT_HISTORICO + "where cv.cliente.cpf = :cpf" + APOS_CURSOR)
+    List<ClienteVagaProjection> findHistoricoByClienteCpf(String cpf, LocalDateTime dataEntrada, long id, Pageable limite);
+
+    @Query(SELECT_HISTORICO + "where cv.cliente.usuario.id = :usuarioId order by cv.dataEntrada, cv.id")
+    List<ClienteVagaProjection> findHistoricoByClienteUsuarioId(Long usuarioId, Pageable limite);
+
+    @Query(SELECT_HISTORICO + "where cv.cliente.usuario.id = :usuarioId" + APOS_CURSOR)
+    List<ClienteVagaProjection> findHistoricoByClienteUsuarioId(Long usuarioId, LocalDateTime dataEntrada, long id, Pageable limite);
+
+    long countByClienteCpf(String cpf);
+
+    long countByClienteUsuarioId(Long usuarioId);
 }
@@ -0,0 +1,15 @@
+package com.balabenute.demo_park_api.repository;
+
+import com.balabenute.demo_park_api.entity.Idempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+
+public interface IdempotenciaRepository extends JpaRepository<Idempotencia, String> {
+
+    @Modifying
+    @Query("delete from Idempotencia i where i.dataCriacao < :limite")
+    int deleteByDataCriacaoBefore(LocalDateTime limite);
+}
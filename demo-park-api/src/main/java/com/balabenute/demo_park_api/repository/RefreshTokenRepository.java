@@ -0,0 +1,33 @@
+package com.balabenute.demo_park_api.repository;
+
+import com.balabenute.demo_park_api.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("select r from RefreshToken r join fetch r.usuario where r.hash = :hash")
+    Optional<RefreshToken> findByHash(String hash);
+
+    // UPDATE condicional: entre usos concorrentes do mesmo token só um consegue revogá-lo e renovar.
+    @Modifying
+    @Query("update RefreshToken r set r.dataRevogacao = :agora " +
+            "where r.id = :id and r.dataRevogacao is null and r.dataExpiracao > :agora")
+    int revogarSeValido(Long id, LocalDateTime agora);
+
+    @Modifying
+    @Query("update RefreshToken r set r.dataRevogacao = :agora where r.familia = :familia and r.dataRevogacao is null")
+    int revogarFamilia(String familia, LocalDateTime agora);
+
+    @Modifying
+    @Query("update RefreshToken r set r.dataRevogacao = :agora where r.usuario.id = :usuarioId and r.dataRevogacao is null")
+    int revogarPorUsuario(Long usuarioId, LocalDateTime agora);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.dataExpiracao < :limite")
+    int deleteByDataExpiracaoBefore(LocalDateTime limite);
+}
@@ -0,0 +1,23 @@
+package com.balabenute.demo_park_api.repository;
+
+import com.balabenute.demo_park_api.entity.RevogacaoToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevogacaoTokenRepository extends JpaRepository<RevogacaoToken, Long> {
+
+    List<RevogacaoToken> findAllByDataExpiracaoAfter(LocalDateTime agora);
+
+    List<RevogacaoToken> findAllByDataRevogacaoGreaterThanEqualAndDataExpiracaoAfter(LocalDateTime desde,
+                                                                                     LocalDateTime agora);
+
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Query("delete from RevogacaoToken r where r.dataExpiracao < :limite")
+    int deleteByDataExpiracaoBefore(LocalDateTime limite);
+}
@@ -0,0 +1,14 @@
+package com.balabenute.demo_park_api.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface VagaLoteRepository {
+
+    // Executa um UPDATE condicional (LIVRE -> OCUPADA) por vaga em um único batch JDBC e
+    // devolve, para cada id, se a vaga foi de fato ocupada por esta transação.
+    boolean[] ocuparEmLote(List<Long> ids, LocalDateTime dataModificacao);
+
+    // Mesmo UPDATE condicional no sentido inverso (OCUPADA -> LIVRE), usado no check-out em lote.
+    boolean[] liberarEmLote(List<Long> ids, LocalDateTime dataModificacao);
+}
@@ -0,0 +1,45 @@
+package com.balabenute.demo_park_api.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class VagaLoteRepositoryImpl implements VagaLoteRepository {
+
+    private static final String OCUPAR_SQL =
+            "update vagas set status = 'OCUPADA', data_modificacao = ? where id = ? and status = 'LIVRE'";
+    private static final String LIBERAR_SQL =
+            "update vagas set status = 'LIVRE', data_modificacao = ? where id = ? and status = 'OCUPADA'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean[] ocuparEmLote(List<Long> ids, LocalDateTime dataModificacao) {
+        return atualizarEmLote(OCUPAR_SQL, ids, dataModificacao);
+    }
+
+    @Override
+    public boolean[] liberarEmLote(List<Long> ids, LocalDateTime dataModificacao) {
+        return atualizarEmLote(LIBERAR_SQL, ids, dataModificacao);
+    }
+
+    private boolean[] atualizarEmLote(String sql, List<Long> ids, LocalDateTime dataModificacao) {
+        Timestamp data = Timestamp.valueOf(dataModificacao);
+        int[][] linhas = jdbcTemplate.batchUpdate(sql, ids, ids.size(), (ps, id) -> {
+            ps.setTimestamp(1, data);
+            ps.setLong(2, id);
+        });
+        boolean[] atualizadas = new boolean[ids.size()];
+        int i = 0;
+        for (int[] lote : linhas) {
+            for (int linha : lote) {
+                atualizadas[i++] = linha == 1;
+            }
+        }
+        return atualizadas;
+    }
+}
@@ -1,12 +1,28 @@
 package com.balabenute.demo_park_api.repository;
 
 import com.balabenute.demo_park_api.entity.Vaga;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
-public interface VagaRepository extends JpaRepository<Vaga, Long> {
+public interface VagaRepository extends JpaRepository<Vaga, Long>, VagaLoteRepository {
     Optional<Vaga> findByCodigo(String codigo);
 
-    Optional<Vaga> findFirstByStatus(Vaga.StatusVaga statusVaga);
+    long countByStatus(Vaga.StatusVaga status);
+
+    // SELECT ... FOR UPDATE SKIP LOCKED: cada transação concorrente recebe linhas diferentes
+    // em vez de disputar a primeira vaga livre.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<Vaga> findAllByStatus(Vaga.StatusVaga statusVaga, Limit limit);
+
+    @Modifying
+    @Query("update Vaga v set v.status = :novoStatus, v.dataModificacao = :dataModificacao " +
+            "where v.id = :id and v.status = :statusAtual")
+    int atualizarStatus(long id, Vaga.StatusVaga statusAtual, Vaga.StatusVaga novoStatus, LocalDateTime dataModificacao);
 }
@@ -1,6 +1,7 @@
 package com.balabenute.demo_park_api.repository.projection;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.math.BigDecimal;
@@ -9,6 +10,10 @@ import java.time.LocalDateTime;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public interface ClienteVagaProjection {
 
+    // Usado apenas para montar o cursor da paginação por chave.
+    @JsonIgnore
+    Long getId();
+
     String getPlaca();
 
     String getMarca();
@@ -0,0 +1,26 @@
+package com.balabenute.demo_park_api.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface EstacionamentoAbertoProjection {
+
+    String getRecibo();
+
+    String getPlaca();
+
+    String getMarca();
+
+    String getModelo();
+
+    String getCor();
+
+    LocalDateTime getDataEntrada();
+
+    Long getClienteId();
+
+    String getClienteCpf();
+
+    Long getVagaId();
+
+    String getVagaCodigo();
+}
@@ -0,0 +1,8 @@
+package com.balabenute.demo_park_api.repository.projection;
+
+public interface TotalPorCpfProjection {
+
+    String getCpf();
+
+    long getTotal();
+}
@@ -0,0 +1,10 @@
+package com.balabenute.demo_park_api.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface VersaoHistoricoProjection {
+
+    long getTotal();
+
+    LocalDateTime getUltimaAlteracao();
+}
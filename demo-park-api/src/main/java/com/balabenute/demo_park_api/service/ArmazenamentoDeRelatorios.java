@@ -0,0 +1,133 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.utils.ArquivoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Relatórios prontos em disco local, em {@code estacionamento.relatorio.jobs.diretorio}.
+ * <p>
+ * O total gravado não passa de {@code tamanho-maximo}: ao gravar um relatório novo, os mais antigos
+ * são apagados até caber. Na inicialização são apagados os {@code .pdf} e {@code .tmp} do diretório,
+ * porque os jobs que apontavam para eles ficam só em memória; os demais arquivos ficam.
+ */
+@Slf4j
+@Component
+public class ArmazenamentoDeRelatorios {
+
+    private record Arquivo(String id, Path caminho, long tamanho) {
+    }
+
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+
+    private final Map<String, Arquivo> arquivos = new ConcurrentHashMap<>();
+    private final Queue<Arquivo> ordem = new ConcurrentLinkedQueue<>();
+    private final AtomicLong total = new AtomicLong();
+
+    public ArmazenamentoDeRelatorios(@Value("${estacionamento.relatorio.jobs.diretorio:${java.io.tmpdir}/demo-park-relatorios}") Path diretorio,
+                                     @Value("${estacionamento.relatorio.jobs.tamanho-maximo:512MB}") DataSize tamanhoMaximo) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximo = tamanhoMaximo.toBytes();
+        ArquivoUtils.prepararDiretorio(diretorio, "*.{pdf,tmp}");
+    }
+
+    /**
+     * Grava o relatório {@code id} com o conteúdo escrito por {@code escritor} e devolve o tamanho em bytes.
+     */
+    public long gravar(String id, Consumer<OutputStream> escritor) {
+        Path destino = diretorio.resolve(id + ".pdf");
+        try {
+            long tamanho = ArquivoUtils.gravar(destino, escritor);
+            if (tamanho > tamanhoMaximo) {
+                Files.delete(destino);
+                throw new IllegalStateException(String.format(
+                        "Relatório com %d bytes excede o armazenamento de %d bytes", tamanho, tamanhoMaximo));
+            }
+            Arquivo arquivo = new Arquivo(id, destino, tamanho);
+            arquivos.put(id, arquivo);
+            ordem.add(arquivo);
+            total.addAndGet(tamanho);
+            liberarEspaco();
+            return tamanho;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public boolean existe(String id) {
+        return arquivos.containsKey(id);
+    }
+
+    /**
+     * Abre o relatório {@code id}. Uma remoção por espaço ou expiração que venha depois da abertura
+     * apaga só a entrada do diretório: o stream continua lendo o conteúdo (em sistemas POSIX). O
+     * chamador deve fechar o stream.
+     */
+    public Optional<InputStream> obter(String id) {
+        Arquivo arquivo = arquivos.get(id);
+        if (arquivo == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.newInputStream(arquivo.caminho()));
+        } catch (NoSuchFileException ex) {
+            // Removido entre a consulta ao mapa e a abertura.
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void remover(String id) {
+        Arquivo arquivo = arquivos.remove(id);
+        if (arquivo != null) {
+            ordem.remove(arquivo);
+            total.addAndGet(-arquivo.tamanho());
+            apagar(arquivo.caminho());
+        }
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    private void liberarEspaco() {
+        while (total.get() > tamanhoMaximo) {
+            Arquivo maisAntigo = ordem.poll();
+            if (maisAntigo == null) {
+                return;
+            }
+            if (arquivos.remove(maisAntigo.id(), maisAntigo)) {
+                log.info("Armazenamento de relatórios cheio; removendo o relatório {}", maisAntigo.id());
+                total.addAndGet(-maisAntigo.tamanho());
+                apagar(maisAntigo.caminho());
+            }
+        }
+    }
+
+    private static void apagar(Path caminho) {
+        try {
+            Files.deleteIfExists(caminho);
+        } catch (IOException ex) {
+            log.warn("Não foi possível apagar {}: {}", caminho, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.exception.ChaveIdempotenciaInvalidaException;
+import com.balabenute.demo_park_api.utils.CacheComExpiracao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Resultados recentes por Idempotency-Key, limitados em quantidade ({@code tamanho-maximo}) e em
+ * tempo ({@code ttl}). Cada chave guarda um {@link CompletableFuture}: uma repetição que chega
+ * enquanto a primeira requisição ainda executa espera pelo mesmo resultado em vez de repetir a
+ * operação. Falhas não ficam guardadas, para que a repetição possa ter sucesso.
+ * <p>
+ * Junto do resultado fica o hash do corpo da requisição: a mesma chave com outro corpo é recusada,
+ * em vez de devolver o resultado de outra operação.
+ */
+@Component
+public class CacheDeIdempotencia {
+
+    private record Execucao(String hashRequisicao, CompletableFuture<Object> resultado) {
+    }
+
+    private final CacheComExpiracao<String, Execucao> execucoes;
+    private final long ttl;
+
+    public CacheDeIdempotencia(@Value("${estacionamento.idempotencia.tamanho-maximo:10000}") int tamanhoMaximo,
+                               @Value("${estacionamento.idempotencia.ttl:24h}") Duration ttl) {
+        this.execucoes = new CacheComExpiracao<>(tamanhoMaximo);
+        this.ttl = ttl.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String chave, String hashRequisicao, Supplier<T> operacao) {
+        Execucao nova = new Execucao(hashRequisicao, new CompletableFuture<>());
+        Execucao existente = execucoes.gravarSeAusente(chave, nova, ttl);
+        if (existente != null) {
+            if (!existente.hashRequisicao().equals(hashRequisicao)) {
+                throw new ChaveIdempotenciaInvalidaException("Idempotency-Key já usada com outra requisição");
+            }
+            return (T) aguardar(existente.resultado());
+        }
+
+        try {
+            T resultado = operacao.get();
+            nova.resultado().complete(resultado);
+            return resultado;
+        } catch (RuntimeException ex) {
+            execucoes.remover(chave, nova);
+            nova.resultado().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static Object aguardar(CompletableFuture<Object> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+    }
+}
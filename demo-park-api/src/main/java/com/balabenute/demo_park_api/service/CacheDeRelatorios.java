@@ -0,0 +1,147 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.utils.ArquivoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Cache em disco dos PDFs do relatório de estacionamentos, endereçado pelo conteúdo: a chave é o
+ * hash do CPF com a versão do histórico do cliente (total de estacionamentos e última alteração).
+ * Qualquer check-in ou check-out muda a versão, então uma entrada nunca fica desatualizada; a
+ * chave também serve de ETag.
+ * <p>
+ * O total em disco não passa de {@code tamanho-maximo}, removendo os relatórios usados há mais
+ * tempo. {@link #invalidar(String)} apenas libera antes o espaço das versões antigas de um cliente.
+ * Os {@code .pdf} e {@code .tmp} do diretório são apagados na inicialização; os demais arquivos ficam.
+ */
+@Slf4j
+@Component
+public class CacheDeRelatorios {
+
+    private record Entrada(String cpf, Path caminho, long tamanho) {
+    }
+
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+
+    // Em ordem de acesso: o primeiro é o usado há mais tempo.
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long total;
+
+    public CacheDeRelatorios(@Value("${estacionamento.relatorio.cache.diretorio:${java.io.tmpdir}/demo-park-relatorios-cache}") Path diretorio,
+                             @Value("${estacionamento.relatorio.cache.tamanho-maximo:256MB}") DataSize tamanhoMaximo) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximo = tamanhoMaximo.toBytes();
+        ArquivoUtils.prepararDiretorio(diretorio, "*.{pdf,tmp}");
+    }
+
+    public String chave(String cpf, String versao) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((cpf + ":" + versao).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Abre o relatório da chave, gerando-o com {@code gerador} se não estiver em cache. Pedidos
+     * simultâneos da mesma chave podem gerar o relatório mais de uma vez; o último substitui os
+     * anteriores.
+     * <p>
+     * O arquivo é aberto ainda com o lock, então uma invalidação ou remoção por espaço que venha
+     * logo depois apaga só a entrada do diretório: quem já abriu continua lendo o conteúdo (em
+     * sistemas POSIX). O chamador deve fechar o stream.
+     */
+    public InputStream obter(String chave, String cpf, Consumer<OutputStream> gerador) {
+        try {
+            synchronized (entradas) {
+                Entrada entrada = entradas.get(chave);
+                if (entrada != null && Files.exists(entrada.caminho())) {
+                    return Files.newInputStream(entrada.caminho());
+                }
+            }
+        } catch (IOException ex) {
+            // Apagado entre a verificação e a abertura; gera de novo.
+            log.debug("Relatório em cache indisponível: {}", ex.getMessage());
+        }
+
+        // Cada geração tem seu próprio arquivo, então uma remoção da entrada anterior nunca apaga este.
+        Path destino = diretorio.resolve(chave + "." + UUID.randomUUID() + ".pdf");
+        try {
+            long tamanho = ArquivoUtils.gravar(destino, gerador);
+            synchronized (entradas) {
+                Entrada anterior = entradas.put(chave, new Entrada(cpf, destino, tamanho));
+                if (anterior != null) {
+                    total -= anterior.tamanho();
+                    apagar(anterior.caminho());
+                }
+                total += tamanho;
+                liberarEspaco(chave);
+                return Files.newInputStream(destino);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void invalidar(String cpf) {
+        synchronized (entradas) {
+            Iterator<Entrada> iterator = entradas.values().iterator();
+            while (iterator.hasNext()) {
+                Entrada entrada = iterator.next();
+                if (entrada.cpf().equals(cpf)) {
+                    iterator.remove();
+                    total -= entrada.tamanho();
+                    apagar(entrada.caminho());
+                }
+            }
+        }
+    }
+
+    public long getTotal() {
+        synchronized (entradas) {
+            return total;
+        }
+    }
+
+    // O relatório recém-gravado fica, mesmo sozinho acima do limite, para poder ser servido.
+    private void liberarEspaco(String atual) {
+        Iterator<Map.Entry<String, Entrada>> iterator = entradas.entrySet().iterator();
+        while (total > tamanhoMaximo && iterator.hasNext()) {
+            Map.Entry<String, Entrada> maisAntiga = iterator.next();
+            if (!maisAntiga.getKey().equals(atual)) {
+                iterator.remove();
+                total -= maisAntiga.getValue().tamanho();
+                apagar(maisAntiga.getValue().caminho());
+            }
+        }
+    }
+
+    private static void apagar(Path caminho) {
+        try {
+            Files.deleteIfExists(caminho);
+        } catch (IOException ex) {
+            log.warn("Não foi possível apagar {}: {}", caminho, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.Usuario;
+import com.balabenute.demo_park_api.utils.CacheComExpiracao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Usuários por username usados na autenticação das requisições com JWT, limitados em quantidade
+ * ({@code tamanho-maximo}) e em tempo ({@code ttl}; 0 desativa o cache). O {@link UsuarioService}
+ * invalida a entrada quando o usuário é alterado.
+ */
+@Component
+public class CacheDeUsuarios {
+
+    private final CacheComExpiracao<String, Usuario> usuarios;
+    private final boolean ativo;
+    private final long ttl;
+
+    public CacheDeUsuarios(@Value("${estacionamento.jwt.usuario-cache.tamanho-maximo:10000}") int tamanhoMaximo,
+                           @Value("${estacionamento.jwt.usuario-cache.ttl:5m}") Duration ttl) {
+        this.usuarios = new CacheComExpiracao<>(tamanhoMaximo);
+        this.ativo = tamanhoMaximo > 0 && !ttl.isZero() && !ttl.isNegative();
+        this.ttl = ttl.toNanos();
+    }
+
+    public Usuario obter(String username, Function<String, Usuario> carregar) {
+        if (!ativo) {
+            return carregar.apply(username);
+        }
+        return usuarios.obter(username, carregar, usuario -> ttl);
+    }
+
+    public void invalidar(String username) {
+        usuarios.invalidar(username);
+    }
+}
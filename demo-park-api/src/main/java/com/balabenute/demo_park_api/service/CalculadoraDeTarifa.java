@@ -0,0 +1,117 @@
+package com.balabenute.demo_park_api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Calcula o custo de um estacionamento em centavos ({@code long}), com as regras de
+ * {@code estacionamento.tarifa.*}:
+ * <ul>
+ *     <li>faixas: preço fixo até cada limite de minutos (padrão: até 15 min R$ 5,00, até 60 min R$ 9,25);</li>
+ *     <li>adicional: após a última faixa, cada fração iniciada de {@code incremento-minutos} custa
+ *     {@code adicional-centavos} (padrão: R$ 1,75 a cada 15 min);</li>
+ *     <li>noturno: frações adicionais iniciadas entre {@code noturno.inicio} e {@code noturno.fim}
+ *     custam {@code noturno.centavos} (0 desativa);</li>
+ *     <li>teto diário: o valor de cada período de 24 horas a partir da entrada não passa de
+ *     {@code teto-diario-centavos} (0 desativa).</li>
+ * </ul>
+ * O {@link BigDecimal} só é criado no retorno de {@link #calcular(LocalDateTime, LocalDateTime)}.
+ */
+@Component
+public class CalculadoraDeTarifa {
+
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    private final long[] faixasMinutos;
+    private final long[] faixasCentavos;
+    private final long incrementoMinutos;
+    private final long adicionalCentavos;
+    private final long tetoDiarioCentavos;
+    private final int inicioNoturno;
+    private final int fimNoturno;
+    private final long noturnoCentavos;
+
+    public CalculadoraDeTarifa(@Value("${estacionamento.tarifa.faixas.minutos:15,60}") long[] faixasMinutos,
+                               @Value("${estacionamento.tarifa.faixas.centavos:500,925}") long[] faixasCentavos,
+                               @Value("${estacionamento.tarifa.incremento-minutos:15}") long incrementoMinutos,
+                               @Value("${estacionamento.tarifa.adicional-centavos:175}") long adicionalCentavos,
+                               @Value("${estacionamento.tarifa.teto-diario-centavos:0}") long tetoDiarioCentavos,
+                               @Value("${estacionamento.tarifa.noturno.inicio:22:00}") String inicioNoturno,
+                               @Value("${estacionamento.tarifa.noturno.fim:06:00}") String fimNoturno,
+                               @Value("${estacionamento.tarifa.noturno.centavos:0}") long noturnoCentavos) {
+        if (faixasMinutos.length == 0 || faixasMinutos.length != faixasCentavos.length) {
+            throw new IllegalArgumentException(
+                    "estacionamento.tarifa.faixas.minutos e faixas.centavos devem ter o mesmo número de valores");
+        }
+        for (int i = 1; i < faixasMinutos.length; i++) {
+            if (faixasMinutos[i] <= faixasMinutos[i - 1]) {
+                throw new IllegalArgumentException("estacionamento.tarifa.faixas.minutos deve ser crescente");
+            }
+        }
+        if (incrementoMinutos <= 0) {
+            throw new IllegalArgumentException("estacionamento.tarifa.incremento-minutos deve ser maior que zero");
+        }
+        this.faixasMinutos = faixasMinutos.clone();
+        this.faixasCentavos = faixasCentavos.clone();
+        this.incrementoMinutos = incrementoMinutos;
+        this.adicionalCentavos = adicionalCentavos;
+        this.tetoDiarioCentavos = tetoDiarioCentavos > 0 ? tetoDiarioCentavos : Long.MAX_VALUE;
+        this.inicioNoturno = LocalTime.parse(inicioNoturno).toSecondOfDay() / 60;
+        this.fimNoturno = LocalTime.parse(fimNoturno).toSecondOfDay() / 60;
+        this.noturnoCentavos = noturnoCentavos;
+    }
+
+    public BigDecimal calcular(LocalDateTime entrada, LocalDateTime saida) {
+        return BigDecimal.valueOf(calcularCentavos(entrada, saida), 2);
+    }
+
+    public long calcularCentavos(LocalDateTime entrada, LocalDateTime saida) {
+        long minutos = ChronoUnit.MINUTES.between(entrada, saida);
+        int ultimaFaixa = faixasMinutos.length - 1;
+        for (int i = 0; i < ultimaFaixa; i++) {
+            if (minutos <= faixasMinutos[i]) {
+                return Math.min(faixasCentavos[i], tetoDiarioCentavos);
+            }
+        }
+        long faixaCentavos = faixasCentavos[ultimaFaixa];
+        if (minutos <= faixasMinutos[ultimaFaixa]) {
+            return Math.min(faixaCentavos, tetoDiarioCentavos);
+        }
+
+        long inicioAdicionais = faixasMinutos[ultimaFaixa];
+        long adicionais = (minutos - inicioAdicionais + incrementoMinutos - 1) / incrementoMinutos;
+        if (noturnoCentavos <= 0 && tetoDiarioCentavos == Long.MAX_VALUE) {
+            return faixaCentavos + adicionais * adicionalCentavos;
+        }
+        return somarPorPeriodo(entrada.getHour() * 60 + entrada.getMinute(), inicioAdicionais, adicionais, faixaCentavos);
+    }
+
+    // Percorre as frações adicionais somando cada período de 24 horas separadamente para aplicar o teto.
+    private long somarPorPeriodo(int minutoEntrada, long inicioAdicionais, long adicionais, long faixaCentavos) {
+        long total = 0;
+        long periodo = 0;
+        long somaPeriodo = faixaCentavos;
+        for (long i = 0; i < adicionais; i++) {
+            long inicioFracao = inicioAdicionais + i * incrementoMinutos;
+            if (inicioFracao / MINUTOS_DIA != periodo) {
+                total += Math.min(somaPeriodo, tetoDiarioCentavos);
+                periodo = inicioFracao / MINUTOS_DIA;
+                somaPeriodo = 0;
+            }
+            int minutoDoDia = (int) ((minutoEntrada + inicioFracao) % MINUTOS_DIA);
+            somaPeriodo += noturnoCentavos > 0 && noturno(minutoDoDia) ? noturnoCentavos : adicionalCentavos;
+        }
+        return total + Math.min(somaPeriodo, tetoDiarioCentavos);
+    }
+
+    private boolean noturno(int minutoDoDia) {
+        return inicioNoturno <= fimNoturno
+                ? minutoDoDia >= inicioNoturno && minutoDoDia < fimNoturno
+                : minutoDoDia >= inicioNoturno || minutoDoDia < fimNoturno;
+    }
+}
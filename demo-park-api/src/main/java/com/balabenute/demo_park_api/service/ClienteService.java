@@ -5,15 +5,28 @@ import com.balabenute.demo_park_api.exception.CpfUniqueViolationException;
 import com.balabenute.demo_park_api.exception.EntityNotFoundException;
 import com.balabenute.demo_park_api.repository.ClienteRepository;
 import com.balabenute.demo_park_api.repository.projection.ClienteProjection;
+import com.balabenute.demo_park_api.repository.projection.TotalPorCpfProjection;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class ClienteService {
@@ -43,6 +56,21 @@ public class ClienteService {
         return clienteRepository.findAllPageable(pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<ClienteProjection> buscarTodosSemContagem(Pageable pageable) {
+        return clienteRepository.findAllSlice(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClienteProjection> buscarLoteAposId(Long id, int tamanho) {
+        return clienteRepository.findLoteAposId(id, PageRequest.of(0, tamanho));
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return clienteRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Cliente buscarPorUsuarioId(Long id) {
         return clienteRepository.findByUsuarioId(id);
@@ -53,4 +81,51 @@ public class ClienteService {
                 () -> new EntityNotFoundException(String.format("Cliente com CPF '%s' não encontrado", cpf))
         );
     }
+
+    @Transactional(readOnly = true)
+    public Map<String, Cliente> buscarPorCpfs(Collection<String> cpfs) {
+        return clienteRepository.findAllByCpfIn(cpfs).stream()
+                .collect(Collectors.toMap(Cliente::getCpf, Function.identity()));
+    }
+
+    /**
+     * Soma os estacionamentos completos de cada cliente com UPDATEs atômicos (um por quantidade
+     * distinta) e devolve, por CPF, o total anterior ao incremento. As linhas ficam travadas até o
+     * fim da transação, então check-outs simultâneos do mesmo cliente recebem totais diferentes.
+     */
+    @Transactional
+    public Map<String, Long> registrarEstacionamentosCompletos(Map<Cliente, Long> quantidades) {
+        Map<Long, List<Long>> idsPorQuantidade = quantidades.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(e -> e.getKey().getId(), Collectors.toList())));
+        idsPorQuantidade.forEach((quantidade, ids) -> clienteRepository.incrementarTotalEstacionamentos(ids, quantidade));
+
+        Map<String, Long> quantidadesPorCpf = new HashMap<>();
+        quantidades.forEach((cliente, quantidade) -> quantidadesPorCpf.put(cliente.getCpf(), quantidade));
+
+        List<Long> ids = quantidades.keySet().stream().map(Cliente::getId).toList();
+        return clienteRepository.findTotalEstacionamentosByIdIn(ids).stream()
+                .collect(Collectors.toMap(TotalPorCpfProjection::getCpf,
+                        total -> total.getTotal() - quantidadesPorCpf.get(total.getCpf())));
+    }
+
+    // O contador começa em zero para os clientes que já existiam quando a coluna foi criada; sem este
+    // preenchimento eles perderiam o desconto de fidelidade até o próximo recálculo completo.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void preencherTotalEstacionamentos() {
+        int clientes = clienteRepository.preencherTotalEstacionamentosAusentes();
+        if (clientes > 0) {
+            log.info("Total de estacionamentos preenchido a partir do histórico para {} clientes", clientes);
+        }
+    }
+
+    // Reconstrói os contadores a partir do histórico de estacionamentos.
+    @Scheduled(cron = "${estacionamento.fidelidade.recalculo-cron:-}")
+    @Transactional
+    public int recalcularTotalEstacionamentos() {
+        int clientes = clienteRepository.recalcularTotalEstacionamentos();
+        log.info("Total de estacionamentos recalculado para {} clientes", clientes);
+        return clientes;
+    }
 }
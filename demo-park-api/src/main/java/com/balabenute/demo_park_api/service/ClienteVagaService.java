@@ -4,35 +4,151 @@ import com.balabenute.demo_park_api.entity.ClienteVaga;
 import com.balabenute.demo_park_api.exception.EntityNotFoundException;
 import com.balabenute.demo_park_api.repository.ClienteVagaRepository;
 import com.balabenute.demo_park_api.repository.projection.ClienteVagaProjection;
-import lombok.RequiredArgsConstructor;
+import com.balabenute.demo_park_api.repository.projection.VersaoHistoricoProjection;
+import com.balabenute.demo_park_api.utils.CursorUtils;
+import com.balabenute.demo_park_api.utils.TransacaoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-@RequiredArgsConstructor
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class ClienteVagaService {
 
     private final ClienteVagaRepository repository;
+    private final IndiceDeEstacionamentosAbertos indice;
+    private final GeradorDeRecibo geradorDeRecibo;
+    private final boolean confirmarNoBanco;
+
+    public ClienteVagaService(ClienteVagaRepository repository,
+                              IndiceDeEstacionamentosAbertos indice,
+                              GeradorDeRecibo geradorDeRecibo,
+                              @Value("${estacionamento.indice.confirmar-no-banco:false}") boolean confirmarNoBanco) {
+        this.repository = repository;
+        this.indice = indice;
+        this.geradorDeRecibo = geradorDeRecibo;
+        this.confirmarNoBanco = confirmarNoBanco;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void carregarEstacionamentosAbertos() {
+        indice.recarregar(repository.findAllAbertos().stream().map(EstacionamentoAberto::of).toList());
+        repository.findUltimoRecibo().ifPresent(geradorDeRecibo::continuarApos);
+    }
 
     @Transactional
     public ClienteVaga salvar(ClienteVaga clienteVaga) {
-        return repository.save(clienteVaga);
+        ClienteVaga salvo = repository.save(clienteVaga);
+        EstacionamentoAberto aberto = EstacionamentoAberto.of(salvo);
+        TransacaoUtils.aposCommit(() -> indice.adicionar(aberto));
+        return salvo;
     }
 
-    @Transactional(readOnly = true)
+    @Transactional
+    public void salvarEmLote(List<ClienteVaga> estacionamentos) {
+        if (!estacionamentos.isEmpty()) {
+            repository.inserirEmLote(estacionamentos);
+            List<EstacionamentoAberto> abertos = estacionamentos.stream().map(EstacionamentoAberto::of).toList();
+            TransacaoUtils.aposCommit(() -> abertos.forEach(indice::adicionar));
+        }
+    }
+
+    /**
+     * Devolve o estacionamento aberto como um {@link ClienteVaga} desanexado, montado a partir do
+     * índice em memória, sem consultar o banco. Com várias instâncias o check-out pode ter sido feito
+     * por outra delas; com {@code estacionamento.indice.confirmar-no-banco=true} o recibo encontrado
+     * no índice é confirmado por uma consulta pelo índice único de recibo, sem carregar cliente e vaga.
+     * <p>
+     * Sem {@code @Transactional}: abrir a transação já tomaria uma conexão do pool. As consultas ao
+     * banco, quando necessárias, usam as transações do próprio repositório.
+     */
     public ClienteVaga buscarPorRecibo(String recibo) {
-        return repository.findByReciboAndDataSaidaIsNull(recibo).orElseThrow(
-                () -> new EntityNotFoundException(
-                        String.format("Recibo '%s' não encontrado no sistema ou check-out já realizado", recibo)
-                )
+        EstacionamentoAberto aberto = indice.buscar(recibo);
+        ClienteVaga clienteVaga;
+        if (aberto == null) {
+            clienteVaga = buscarPorRecibos(List.of(recibo)).get(recibo);
+        } else if (!confirmarNoBanco || repository.existsByReciboAndDataSaidaIsNull(recibo)) {
+            clienteVaga = aberto.toClienteVaga();
+        } else {
+            indice.remover(recibo);
+            clienteVaga = null;
+        }
+        if (clienteVaga == null) {
+            throw new EntityNotFoundException(
+                    String.format("Recibo '%s' não encontrado no sistema ou check-out já realizado", recibo));
+        }
+        return clienteVaga;
+    }
+
+    // Busca pelo recibo com ou sem check-out, usada para repetir a resposta de uma requisição idempotente.
+    @Transactional(readOnly = true)
+    public ClienteVaga buscarPorReciboEmQualquerSituacao(String recibo) {
+        return repository.findByRecibo(recibo).orElseThrow(
+                () -> new EntityNotFoundException(String.format("Recibo '%s' não encontrado no sistema", recibo))
         );
     }
 
+    // Sem confirmação no banco: quem usa o resultado para o check-out grava com um UPDATE condicional.
+    @Transactional(readOnly = true)
+    public Map<String, ClienteVaga> buscarPorRecibos(Collection<String> recibos) {
+        Map<String, ClienteVaga> abertos = new HashMap<>();
+        List<String> ausentes = new ArrayList<>();
+        for (String recibo : recibos) {
+            EstacionamentoAberto aberto = indice.buscar(recibo);
+            if (aberto != null) {
+                abertos.put(recibo, aberto.toClienteVaga());
+            } else {
+                ausentes.add(recibo);
+            }
+        }
+        if (!ausentes.isEmpty()) {
+            repository.findAllAbertosByReciboIn(ausentes)
+                    .forEach(projection -> abertos.put(projection.getRecibo(), EstacionamentoAberto.of(projection).toClienteVaga()));
+        }
+        return abertos;
+    }
+
+    /**
+     * Grava o check-out dos estacionamentos e devolve quais foram de fato finalizados; os demais já
+     * tinham saída registrada por outra transação. Os recibos saem do índice após o commit.
+     */
+    @Transactional
+    public boolean[] finalizar(List<ClienteVaga> estacionamentos) {
+        boolean[] finalizados = repository.finalizarEmLote(estacionamentos);
+        for (int i = 0; i < finalizados.length; i++) {
+            String recibo = estacionamentos.get(i).getRecibo();
+            if (finalizados[i]) {
+                TransacaoUtils.aposCommit(() -> indice.remover(recibo));
+            } else {
+                indice.remover(recibo);
+            }
+        }
+        return finalizados;
+    }
+
+    @Transactional
+    public void atualizarDescontos(List<ClienteVaga> estacionamentos) {
+        if (!estacionamentos.isEmpty()) {
+            repository.atualizarDescontoEmLote(estacionamentos);
+        }
+    }
+
     @Transactional(readOnly = true)
-    public long getTotalDeVezesEstacionamentoCompleto(String cpf) {
-        return repository.countByClienteCpfAndDataSaidaIsNotNull(cpf);
+    public String buscarVersaoDoHistorico(String cpf) {
+        VersaoHistoricoProjection versao = repository.findVersaoHistoricoByClienteCpf(cpf);
+        return versao.getTotal() + "-" + versao.getUltimaAlteracao();
     }
 
     @Transactional(readOnly = true)
@@ -44,4 +160,47 @@ public class ClienteVagaService {
     public Page<ClienteVagaProjection> buscarTodosPorUsuarioId(Long id, Pageable pageable) {
         return repository.findAllByClienteUsuarioId(id, pageable);
     }
+
+    @Transactional(readOnly = true)
+    public Slice<ClienteVagaProjection> buscarTodosPorClienteCpfSemContagem(String cpf, Pageable pageable) {
+        return repository.findSliceByClienteCpf(cpf, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ClienteVagaProjection> buscarTodosPorUsuarioIdSemContagem(Long id, Pageable pageable) {
+        return repository.findSliceByClienteUsuarioId(id, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaPorCursor<ClienteVagaProjection> buscarHistoricoPorClienteCpf(String cpf, String cursor,
+                                                                               int tamanho, boolean contagem) {
+        CursorUtils.Posicao posicao = CursorUtils.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamanho + 1);
+        List<ClienteVagaProjection> registros = posicao == null
+                ? repository.findHistoricoByClienteCpf(cpf, limite)
+                : repository.findHistoricoByClienteCpf(cpf, posicao.dataEntrada(), posicao.id(), limite);
+        return toPagina(registros, tamanho, contagem ? repository.countByClienteCpf(cpf) : null);
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaPorCursor<ClienteVagaProjection> buscarHistoricoPorUsuarioId(Long id, String cursor,
+                                                                              int tamanho, boolean contagem) {
+        CursorUtils.Posicao posicao = CursorUtils.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamanho + 1);
+        List<ClienteVagaProjection> registros = posicao == null
+                ? repository.findHistoricoByClienteUsuarioId(id, limite)
+                : repository.findHistoricoByClienteUsuarioId(id, posicao.dataEntrada(), posicao.id(), limite);
+        return toPagina(registros, tamanho, contagem ? repository.countByClienteUsuarioId(id) : null);
+    }
+
+    // A consulta traz um registro além do tamanho da página só para saber se existe uma próxima.
+    private static PaginaPorCursor<ClienteVagaProjection> toPagina(List<ClienteVagaProjection> registros,
+                                                                   int tamanho, Long total) {
+        if (registros.size() <= tamanho) {
+            return new PaginaPorCursor<>(registros, tamanho, null, total);
+        }
+        List<ClienteVagaProjection> conteudo = registros.subList(0, tamanho);
+        ClienteVagaProjection ultimo = conteudo.get(tamanho - 1);
+        return new PaginaPorCursor<>(conteudo, tamanho, CursorUtils.codificar(ultimo.getDataEntrada(), ultimo.getId()), total);
+    }
 }
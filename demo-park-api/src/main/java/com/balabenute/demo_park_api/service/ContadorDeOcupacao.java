@@ -0,0 +1,100 @@
+package com.balabenute.demo_park_api.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores em memória da ocupação do estacionamento, para consultas frequentes sem acesso ao banco.
+ * <p>
+ * Os totais são uma base lida do banco ({@link VagaService#reconciliarOcupacao()}) somada às variações
+ * registradas depois de cada commit em {@link LongAdder}s. Entre duas reconciliações o valor pode
+ * se afastar do banco por alterações feitas fora da API ou por commits concorrentes à leitura da base.
+ * <p>
+ * Check-ins e check-outs recentes ficam em 60 posições de um segundo cada; cada posição guarda o
+ * segundo e a contagem no mesmo long, atualizado com CAS, para que a troca de segundo não perca eventos.
+ */
+@Component
+public class ContadorDeOcupacao {
+
+    public record Ocupacao(long total, long ocupadas, long checkInsUltimoMinuto, long checkOutsUltimoMinuto) {
+
+        public long livres() {
+            return Math.max(total - ocupadas, 0);
+        }
+    }
+
+    public record Marca(long total, long ocupadas) {
+    }
+
+    private static final int JANELA_SEGUNDOS = 60;
+    private static final int BITS_CONTAGEM = 20;
+    private static final long MASCARA_CONTAGEM = (1L << BITS_CONTAGEM) - 1;
+
+    private final LongAdder variacaoTotal = new LongAdder();
+    private final LongAdder variacaoOcupadas = new LongAdder();
+    private volatile Marca base = new Marca(0, 0);
+
+    private final AtomicLongArray checkIns = new AtomicLongArray(JANELA_SEGUNDOS);
+    private final AtomicLongArray checkOuts = new AtomicLongArray(JANELA_SEGUNDOS);
+
+    public void registrarVagas(long quantidade) {
+        variacaoTotal.add(quantidade);
+    }
+
+    public void registrarCheckIns(long quantidade) {
+        variacaoOcupadas.add(quantidade);
+        registrarNaJanela(checkIns, quantidade);
+    }
+
+    public void registrarCheckOuts(long quantidade) {
+        variacaoOcupadas.add(-quantidade);
+        registrarNaJanela(checkOuts, quantidade);
+    }
+
+    // Deve ser chamada antes de contar as vagas no banco; as variações registradas depois dela são
+    // somadas à nova base.
+    public Marca marcar() {
+        return new Marca(variacaoTotal.sum(), variacaoOcupadas.sum());
+    }
+
+    public void reconciliar(Marca marca, long total, long ocupadas) {
+        base = new Marca(total - marca.total(), ocupadas - marca.ocupadas());
+    }
+
+    public Ocupacao consultar() {
+        Marca atual = base;
+        long segundo = segundoAtual();
+        return new Ocupacao(atual.total() + variacaoTotal.sum(), atual.ocupadas() + variacaoOcupadas.sum(),
+                somarJanela(checkIns, segundo), somarJanela(checkOuts, segundo));
+    }
+
+    private static void registrarNaJanela(AtomicLongArray janela, long quantidade) {
+        long segundo = segundoAtual();
+        int posicao = (int) (segundo % JANELA_SEGUNDOS);
+        long atual;
+        long novo;
+        do {
+            atual = janela.get(posicao);
+            novo = (atual >>> BITS_CONTAGEM) == segundo
+                    ? atual + quantidade
+                    : (segundo << BITS_CONTAGEM) | quantidade;
+        } while (!janela.compareAndSet(posicao, atual, novo));
+    }
+
+    private static long somarJanela(AtomicLongArray janela, long segundo) {
+        long soma = 0;
+        for (int i = 0; i < JANELA_SEGUNDOS; i++) {
+            long valor = janela.get(i);
+            if (segundo - (valor >>> BITS_CONTAGEM) < JANELA_SEGUNDOS) {
+                soma += valor & MASCARA_CONTAGEM;
+            }
+        }
+        return soma;
+    }
+
+    private static long segundoAtual() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
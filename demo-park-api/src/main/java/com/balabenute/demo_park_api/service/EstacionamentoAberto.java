@@ -0,0 +1,54 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.Cliente;
+import com.balabenute.demo_park_api.entity.ClienteVaga;
+import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.repository.projection.EstacionamentoAbertoProjection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dados de um estacionamento sem check-out mantidos no {@link IndiceDeEstacionamentosAbertos}:
+ * somente o necessário para consultar o recibo e calcular o check-out, sem referências a entidades.
+ */
+public record EstacionamentoAberto(String recibo, String placa, String marca, String modelo, String cor,
+                                   LocalDateTime dataEntrada, long clienteId, String clienteCpf,
+                                   long vagaId, String vagaCodigo) {
+
+    public static EstacionamentoAberto of(ClienteVaga clienteVaga) {
+        return new EstacionamentoAberto(clienteVaga.getRecibo(), clienteVaga.getPlaca(), clienteVaga.getMarca(),
+                clienteVaga.getModelo(), clienteVaga.getCor(), clienteVaga.getDataEntrada(),
+                clienteVaga.getCliente().getId(), clienteVaga.getCliente().getCpf(),
+                clienteVaga.getVaga().getId(), clienteVaga.getVaga().getCodigo());
+    }
+
+    public static EstacionamentoAberto of(EstacionamentoAbertoProjection projection) {
+        return new EstacionamentoAberto(projection.getRecibo(), projection.getPlaca(), projection.getMarca(),
+                projection.getModelo(), projection.getCor(), projection.getDataEntrada(),
+                projection.getClienteId(), projection.getClienteCpf(),
+                projection.getVagaId(), projection.getVagaCodigo());
+    }
+
+    // ClienteVaga desanexado, com cliente e vaga preenchidos apenas com id e cpf/código.
+    public ClienteVaga toClienteVaga() {
+        Cliente cliente = new Cliente();
+        cliente.setId(clienteId);
+        cliente.setCpf(clienteCpf);
+
+        Vaga vaga = new Vaga();
+        vaga.setId(vagaId);
+        vaga.setCodigo(vagaCodigo);
+        vaga.setStatus(Vaga.StatusVaga.OCUPADA);
+
+        ClienteVaga clienteVaga = new ClienteVaga();
+        clienteVaga.setRecibo(recibo);
+        clienteVaga.setPlaca(placa);
+        clienteVaga.setMarca(marca);
+        clienteVaga.setModelo(modelo);
+        clienteVaga.setCor(cor);
+        clienteVaga.setDataEntrada(dataEntrada);
+        clienteVaga.setCliente(cliente);
+        clienteVaga.setVaga(vaga);
+        return clienteVaga;
+    }
+}
@@ -3,13 +3,20 @@ package com.balabenute.demo_park_api.service;
 import com.balabenute.demo_park_api.entity.Cliente;
 import com.balabenute.demo_park_api.entity.ClienteVaga;
 import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.exception.EntityNotFoundException;
 import com.balabenute.demo_park_api.utils.EstacionamentoUtils;
+import com.balabenute.demo_park_api.utils.TransacaoUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.balabenute.demo_park_api.entity.Vaga.StatusVaga.LIVRE;
+import static com.balabenute.demo_park_api.entity.Vaga.StatusVaga.OCUPADA;
 
 @RequiredArgsConstructor
 @Service
@@ -18,40 +25,178 @@ public class EstacionamentoService {
     private final ClienteVagaService clienteVagaService;
     private final ClienteService clienteService;
     private final VagaService vagaService;
+    private final GeradorDeRecibo geradorDeRecibo;
+    private final CalculadoraDeTarifa calculadoraDeTarifa;
+    private final ContadorDeOcupacao contadorDeOcupacao;
+    private final EventosDeVagas eventosDeVagas;
+    private final CacheDeRelatorios cacheDeRelatorios;
 
     @Transactional
     public ClienteVaga checkIn(ClienteVaga clienteVaga) {
         Cliente cliente = clienteService.buscarPorCpf(clienteVaga.getCliente().getCpf());
         clienteVaga.setCliente(cliente);
 
-        Vaga vaga = vagaService.buscarPorVagaLivre();
-        vaga.setStatus(Vaga.StatusVaga.OCUPADA);
+        Vaga vaga = vagaService.ocuparVagaLivre();
         clienteVaga.setVaga(vaga);
 
         clienteVaga.setDataEntrada(LocalDateTime.now());
 
-        clienteVaga.setRecibo(EstacionamentoUtils.gerarRecibo());
+        clienteVaga.setRecibo(geradorDeRecibo.gerar());
 
-        return clienteVagaService.salvar(clienteVaga);
+        ClienteVaga salvo = clienteVagaService.salvar(clienteVaga);
+        notificarAposCommit(List.of(vaga), OCUPADA);
+        invalidarRelatoriosAposCommit(List.of(salvo));
+        return salvo;
     }
 
     @Transactional
-    public ClienteVaga checkOut(String recibo) {
-        ClienteVaga clienteVaga = clienteVagaService.buscarPorRecibo(recibo);
+    public List<ResultadoLote<ClienteVaga>> checkInEmLote(List<ClienteVaga> estacionamentos) {
+        Set<String> cpfs = estacionamentos.stream()
+                .map(clienteVaga -> clienteVaga.getCliente().getCpf())
+                .collect(Collectors.toSet());
+        Map<String, Cliente> clientes = clienteService.buscarPorCpfs(cpfs);
+
+        long comCliente = estacionamentos.stream()
+                .filter(clienteVaga -> clientes.containsKey(clienteVaga.getCliente().getCpf()))
+                .count();
+        Iterator<Vaga> vagas = vagaService.ocuparVagasLivres((int) comCliente).iterator();
+
+        LocalDateTime dataEntrada = LocalDateTime.now();
+        List<ClienteVaga> novos = new ArrayList<>();
+        List<ResultadoLote<ClienteVaga>> resultados = new ArrayList<>(estacionamentos.size());
+        for (ClienteVaga clienteVaga : estacionamentos) {
+            String cpf = clienteVaga.getCliente().getCpf();
+            Cliente cliente = clientes.get(cpf);
+            if (cliente == null) {
+                resultados.add(ResultadoLote.falha(clienteVaga, new EntityNotFoundException(
+                        String.format("Cliente com CPF '%s' não encontrado", cpf))));
+                continue;
+            }
+            if (!vagas.hasNext()) {
+                resultados.add(ResultadoLote.falha(clienteVaga, new EntityNotFoundException(
+                        "Nnehuma vaga livre foi encontrada")));
+                continue;
+            }
+            clienteVaga.setCliente(cliente);
+            clienteVaga.setVaga(vagas.next());
+            clienteVaga.setDataEntrada(dataEntrada);
+            clienteVaga.setRecibo(geradorDeRecibo.gerar());
+            novos.add(clienteVaga);
+            resultados.add(ResultadoLote.sucesso(clienteVaga));
+        }
+
+        clienteVagaService.salvarEmLote(novos);
+        notificarAposCommit(novos.stream().map(ClienteVaga::getVaga).toList(), OCUPADA);
+        invalidarRelatoriosAposCommit(novos);
+        return resultados;
+    }
 
-        LocalDateTime dataSaida = LocalDateTime.now();
+    @Transactional
+    public ClienteVaga checkOut(String recibo) {
+        List<ResultadoLote<ClienteVaga>> resultado = checkOutEmLote(List.of(recibo));
+        if (!resultado.get(0).isSucesso()) {
+            throw resultado.get(0).getErro();
+        }
+        return resultado.get(0).getItem();
+    }
 
-        BigDecimal valor = EstacionamentoUtils.calcularCusto(clienteVaga.getDataEntrada(), dataSaida);
-        clienteVaga.setValor(valor);
+    /**
+     * O check-out é gravado por um UPDATE condicional (saída ainda nula) antes de incrementar o
+     * total de estacionamentos do cliente; assim só quem de fato fechou o estacionamento conta para
+     * o desconto, que é gravado em seguida apenas quando diferente de zero.
+     */
+    @Transactional
+    public List<ResultadoLote<ClienteVaga>> checkOutEmLote(List<String> recibos) {
+        Map<String, ClienteVaga> abertos = clienteVagaService.buscarPorRecibos(recibos);
 
-        long totalDeVezes = clienteVagaService.getTotalDeVezesEstacionamentoCompleto(clienteVaga.getCliente().getCpf());
+        LocalDateTime dataSaida = LocalDateTime.now();
+        BigDecimal semDesconto = BigDecimal.ZERO.setScale(2);
+        List<ClienteVaga> pendentes = new ArrayList<>();
+        for (String recibo : recibos) {
+            ClienteVaga clienteVaga = abertos.remove(recibo);
+            if (clienteVaga != null) {
+                clienteVaga.setDataSaida(dataSaida);
+                clienteVaga.setValor(calculadoraDeTarifa.calcular(clienteVaga.getDataEntrada(), dataSaida));
+                clienteVaga.setDesconto(semDesconto);
+                pendentes.add(clienteVaga);
+            }
+        }
+
+        List<ClienteVaga> finalizados = new ArrayList<>(pendentes.size());
+        if (!pendentes.isEmpty()) {
+            boolean[] resultado = clienteVagaService.finalizar(pendentes);
+            for (int i = 0; i < resultado.length; i++) {
+                if (resultado[i]) {
+                    finalizados.add(pendentes.get(i));
+                }
+            }
+        }
+        aplicarDescontos(finalizados);
+        List<Vaga> liberadas = finalizados.stream().map(ClienteVaga::getVaga).toList();
+        vagaService.liberarVagas(liberadas);
+        notificarAposCommit(liberadas, LIVRE);
+        invalidarRelatoriosAposCommit(finalizados);
+
+        Map<String, ClienteVaga> porRecibo = new HashMap<>();
+        finalizados.forEach(clienteVaga -> porRecibo.put(clienteVaga.getRecibo(), clienteVaga));
+        List<ResultadoLote<ClienteVaga>> resultados = new ArrayList<>(recibos.size());
+        for (String recibo : recibos) {
+            ClienteVaga clienteVaga = porRecibo.remove(recibo);
+            resultados.add(clienteVaga != null
+                    ? ResultadoLote.sucesso(clienteVaga)
+                    : ResultadoLote.falha(null, new EntityNotFoundException(
+                            String.format("Recibo '%s' não encontrado no sistema ou check-out já realizado", recibo))));
+        }
+        return resultados;
+    }
 
-        BigDecimal desconto = EstacionamentoUtils.calcularDesconto(valor, totalDeVezes);
-        clienteVaga.setDesconto(desconto);
+    private void aplicarDescontos(List<ClienteVaga> finalizados) {
+        if (finalizados.isEmpty()) {
+            return;
+        }
+        Map<Cliente, Long> saidasPorCliente = finalizados.stream()
+                .collect(Collectors.groupingBy(ClienteVaga::getCliente, Collectors.counting()));
+        Map<String, Long> totais = new HashMap<>(clienteService.registrarEstacionamentosCompletos(saidasPorCliente));
+
+        List<ClienteVaga> comDesconto = new ArrayList<>();
+        for (ClienteVaga clienteVaga : finalizados) {
+            // Saídas do mesmo cliente no lote contam como estacionamentos completos para as seguintes.
+            String cpf = clienteVaga.getCliente().getCpf();
+            long totalDeVezes = totais.getOrDefault(cpf, 0L);
+            totais.put(cpf, totalDeVezes + 1);
+
+            BigDecimal desconto = EstacionamentoUtils.calcularDesconto(clienteVaga.getValor(), totalDeVezes);
+            if (desconto.signum() != 0) {
+                clienteVaga.setDesconto(desconto);
+                comDesconto.add(clienteVaga);
+            }
+        }
+        clienteVagaService.atualizarDescontos(comDesconto);
+    }
 
-        clienteVaga.setDataSaida(dataSaida);
-        clienteVaga.getVaga().setStatus(Vaga.StatusVaga.LIVRE);
+    // A versão do histórico já muda com o check-in ou check-out; isto só libera o disco das versões antigas.
+    private void invalidarRelatoriosAposCommit(List<ClienteVaga> estacionamentos) {
+        if (estacionamentos.isEmpty()) {
+            return;
+        }
+        Set<String> cpfs = estacionamentos.stream()
+                .map(clienteVaga -> clienteVaga.getCliente().getCpf())
+                .collect(Collectors.toSet());
+        TransacaoUtils.aposCommit(() -> cpfs.forEach(cacheDeRelatorios::invalidar));
+    }
 
-        return clienteVagaService.salvar(clienteVaga);
+    private void notificarAposCommit(List<Vaga> vagas, Vaga.StatusVaga status) {
+        if (vagas.isEmpty()) {
+            return;
+        }
+        TransacaoUtils.aposCommit(() -> {
+            if (status == OCUPADA) {
+                contadorDeOcupacao.registrarCheckIns(vagas.size());
+            } else {
+                contadorDeOcupacao.registrarCheckOuts(vagas.size());
+            }
+            vagas.forEach(vaga -> eventosDeVagas.publicar(new EventosDeVagas.VagaAlterada(vaga.getId(), vaga.getCodigo(), status)));
+            eventosDeVagas.publicar(new EventosDeVagas.OcupacaoAlterada(contadorDeOcupacao.consultar()));
+        });
     }
 }
@@ -0,0 +1,86 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Publica as mudanças de status das vagas e a ocupação resultante para os assinantes do stream de
+ * eventos. Os eventos são emitidos depois do commit do check-in/check-out.
+ * <p>
+ * O sink não guarda eventos para quem se inscreve depois; cada assinante recebe seu próprio buffer
+ * limitado ({@code estacionamento.eventos.buffer}) e, quando consome devagar, perde os eventos mais
+ * antigos em vez de atrasar os demais assinantes.
+ * <p>
+ * Cada assinatura mantém uma requisição assíncrona aberta, então o número de assinantes simultâneos
+ * é limitado por {@code estacionamento.eventos.maximo-assinantes} (0 = sem limite); acima dele a
+ * assinatura é recusada com {@link ServicoSobrecarregadoException} (503).
+ */
+@Component
+public class EventosDeVagas {
+
+    public sealed interface Evento permits VagaAlterada, OcupacaoAlterada {
+    }
+
+    public record VagaAlterada(long id, String codigo, Vaga.StatusVaga status) implements Evento {
+    }
+
+    public record OcupacaoAlterada(ContadorDeOcupacao.Ocupacao ocupacao) implements Evento {
+    }
+
+    private final Sinks.Many<Evento> sink = Sinks.many().multicast().directBestEffort();
+    private final int buffer;
+    private final int maximoDeAssinantes;
+    private final AtomicInteger assinantes = new AtomicInteger();
+
+    public EventosDeVagas(@Value("${estacionamento.eventos.buffer:256}") int buffer,
+                          @Value("${estacionamento.eventos.maximo-assinantes:1000}") int maximoDeAssinantes) {
+        this.buffer = buffer;
+        this.maximoDeAssinantes = maximoDeAssinantes;
+    }
+
+    /**
+     * Stream que começa pelo evento de {@code inicial} e segue com os publicados depois da inscrição.
+     * <p>
+     * Com o limite já atingido a chamada é recusada na hora, antes de a resposta começar. A vaga em
+     * si só é reservada quando o Flux é assinado e é liberada quando a assinatura termina, então um
+     * Flux descartado sem assinatura não prende vaga; quem passa da verificação junto com outros e
+     * excede o limite recebe o erro pelo próprio Flux.
+     */
+    public Flux<Evento> assinar(Supplier<? extends Evento> inicial) {
+        if (maximoDeAssinantes > 0 && assinantes.get() >= maximoDeAssinantes) {
+            throw limiteAtingido();
+        }
+        return Flux.defer(() -> {
+            if (assinantes.incrementAndGet() > maximoDeAssinantes && maximoDeAssinantes > 0) {
+                assinantes.decrementAndGet();
+                return Flux.error(limiteAtingido());
+            }
+            Flux<Evento> eventos = sink.asFlux().onBackpressureBuffer(buffer, descartado -> {
+            }, BufferOverflowStrategy.DROP_OLDEST);
+            return Flux.concat(Mono.fromSupplier(inicial), eventos)
+                    .doFinally(sinal -> assinantes.decrementAndGet());
+        });
+    }
+
+    public int getAssinantes() {
+        return assinantes.get();
+    }
+
+    private static ServicoSobrecarregadoException limiteAtingido() {
+        return new ServicoSobrecarregadoException("Limite de assinantes do stream de eventos atingido, tente novamente em instantes.");
+    }
+
+    // O sink não aceita emissões concorrentes; os commits de várias threads são serializados aqui.
+    public synchronized void publicar(Evento evento) {
+        sink.tryEmitNext(evento);
+    }
+}
@@ -0,0 +1,261 @@
+package com.balabenute.demo_park_api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta o histórico de estacionamentos direto de um cursor JDBC somente leitura e de avanço único.
+ * Cada linha é escrita na saída assim que chega do banco e o driver busca {@code fetch-size} linhas
+ * por vez, então a memória usada não depende do número de linhas exportadas.
+ * <p>
+ * No PostgreSQL o driver só respeita o fetch size com autocommit desligado, por isso a consulta
+ * roda dentro de uma transação somente leitura.
+ */
+@Slf4j
+@Service
+public class ExportacaoService {
+
+    private static final String SELECT_EXPORTACAO =
+            "select cv.numero_recibo, cv.placa, cv.marca, cv.modelo, cv.cor, cv.data_entrada, cv.data_saida, " +
+            "cv.valor, cv.desconto, c.cpf, v.codigo " +
+            "from clientes_tem_vagas cv " +
+            "join clientes c on c.id = cv.id_cliente " +
+            "join vagas v on v.id = cv.id_vaga " +
+            "where cv.data_entrada >= ? and cv.data_entrada < ? and (? is null or c.cpf = ?) " +
+            "order by cv.data_entrada, cv.id";
+
+    private static final String[] COLUNAS = {
+            "numeroRecibo", "placa", "marca", "modelo", "cor", "dataEntrada", "dataSaida",
+            "valor", "desconto", "clienteCpf", "vagaCodigo"
+    };
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+    private final int tamanhoDoBuffer;
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+
+    public ExportacaoService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${estacionamento.exportacao.fetch-size:1000}") int fetchSize,
+                             @Value("${estacionamento.exportacao.buffer-bytes:65536}") int tamanhoDoBuffer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.tamanhoDoBuffer = tamanhoDoBuffer;
+    }
+
+    /**
+     * Escreve em {@code saida} os estacionamentos com entrada em [inicio, fim), opcionalmente de um
+     * único cliente, e devolve o número de linhas exportadas. A saída não é fechada.
+     */
+    public long exportar(Formato formato, LocalDateTime inicio, LocalDateTime fim, String cpf,
+                         boolean gzip, OutputStream saida) throws IOException {
+        GZIPOutputStream compactador = gzip ? new GZIPOutputStream(saida, tamanhoDoBuffer) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                compactador != null ? compactador : saida, StandardCharsets.UTF_8), tamanhoDoBuffer);
+        EscritorDeLinhas escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+
+        long[] linhas = {0};
+        try {
+            escritor.iniciar();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    consulta(inicio, fim, cpf),
+                    rs -> {
+                        try {
+                            escritor.escrever(rs);
+                            linhas[0]++;
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }));
+            escritor.finalizar();
+            writer.flush();
+            if (compactador != null) {
+                compactador.finish();
+            }
+        } catch (UncheckedIOException ex) {
+            // Normalmente o cliente fechou a conexão no meio do download.
+            log.warn("Exportação interrompida após {} linhas: {}", linhas[0], ex.getCause().getMessage());
+            throw ex.getCause();
+        }
+        log.info("Exportação {} concluída com {} linhas", formato, linhas[0]);
+        return linhas[0];
+    }
+
+    private PreparedStatementCreator consulta(LocalDateTime inicio, LocalDateTime fim, String cpf) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_EXPORTACAO,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, inicio);
+            ps.setObject(2, fim);
+            ps.setString(3, cpf);
+            ps.setString(4, cpf);
+            return ps;
+        };
+    }
+
+    private interface EscritorDeLinhas {
+
+        default void iniciar() throws IOException {
+        }
+
+        void escrever(ResultSet rs) throws SQLException, IOException;
+
+        void finalizar() throws IOException;
+    }
+
+    private class EscritorNdjson implements EscritorDeLinhas {
+
+        private final JsonGenerator generator;
+
+        EscritorNdjson(Writer writer) throws IOException {
+            this.generator = jsonFactory.createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Cada objeto já termina com '\n'; sem isso o Jackson ainda separa os objetos com um espaço.
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void escrever(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < 5; i++) {
+                generator.writeStringField(COLUNAS[i], rs.getString(i + 1));
+            }
+            writeData(COLUNAS[5], rs.getObject(6, LocalDateTime.class));
+            writeData(COLUNAS[6], rs.getObject(7, LocalDateTime.class));
+            writeValor(COLUNAS[7], rs.getBigDecimal(8));
+            writeValor(COLUNAS[8], rs.getBigDecimal(9));
+            generator.writeStringField(COLUNAS[9], rs.getString(10));
+            generator.writeStringField(COLUNAS[10], rs.getString(11));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finalizar() throws IOException {
+            generator.flush();
+        }
+
+        private void writeData(String campo, LocalDateTime data) throws IOException {
+            if (data == null) {
+                generator.writeNullField(campo);
+            } else {
+                generator.writeStringField(campo, FORMATO_DATA.format(data));
+            }
+        }
+
+        private void writeValor(String campo, BigDecimal valor) throws IOException {
+            if (valor == null) {
+                generator.writeNullField(campo);
+            } else {
+                generator.writeNumberField(campo, valor);
+            }
+        }
+    }
+
+    private static class EscritorCsv implements EscritorDeLinhas {
+
+        private final Writer writer;
+
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            writer.write(String.join(",", COLUNAS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void escrever(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= COLUNAS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object valor = switch (i) {
+                    case 6, 7 -> rs.getObject(i, LocalDateTime.class);
+                    case 8, 9 -> rs.getBigDecimal(i);
+                    default -> rs.getString(i);
+                };
+                if (valor instanceof LocalDateTime data) {
+                    writer.write(FORMATO_DATA.format(data));
+                } else if (valor instanceof BigDecimal numero) {
+                    writer.write(numero.toPlainString());
+                } else if (valor != null) {
+                    escreverTexto(valor.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finalizar() {
+        }
+
+        // RFC 4180: campos com separador, aspas ou quebra de linha vão entre aspas, com aspas duplicadas.
+        private void escreverTexto(String texto) throws IOException {
+            boolean escapar = false;
+            for (int i = 0; i < texto.length() && !escapar; i++) {
+                char c = texto.charAt(i);
+                escapar = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!escapar) {
+                writer.write(texto);
+                return;
+            }
+            writer.write('"');
+            writer.write(texto.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
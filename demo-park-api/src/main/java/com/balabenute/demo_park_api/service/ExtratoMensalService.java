@@ -0,0 +1,240 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.exception.EntityNotFoundException;
+import com.balabenute.demo_park_api.exception.MesNaoEncerradoException;
+import com.balabenute.demo_park_api.exception.RelatorioIndisponivelException;
+import com.balabenute.demo_park_api.repository.projection.ClienteProjection;
+import com.balabenute.demo_park_api.utils.ArquivoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera o extrato mensal em PDF de todos os clientes, em {@code estacionamento.extrato.diretorio}/yyyy-MM/cpf.pdf.
+ * <p>
+ * Os clientes são lidos em lotes de {@code lote} por chave (id) e os extratos de cada lote são
+ * preenchidos em paralelo por {@code threads} threads, todos com o template já carregado pelo
+ * {@link JasperService}. As conexões usadas ficam limitadas pelo {@code estacionamento.extrato.concorrencia}
+ * do {@link JasperService}, mais uma para a leitura dos lotes.
+ * <p>
+ * Extratos já existentes são pulados: uma execução interrompida ou cancelada continua de onde parou
+ * quando iniciada de novo, sem arquivos incompletos graças a {@link ArquivoUtils#gravar}.
+ * Por isso só meses já encerrados são aceitos, senão um extrato parcial nunca seria refeito.
+ * Só uma execução roda por vez e apenas a última fica em memória.
+ */
+@Slf4j
+@Service
+public class ExtratoMensalService {
+
+    public enum Status {
+        EM_ANDAMENTO, CONCLUIDO, CANCELADO, ERRO
+    }
+
+    public record Progresso(YearMonth mes, Status status, long total, long processados, long gerados,
+                            long existentes, long falhas, LocalDateTime inicio, LocalDateTime fim,
+                            double extratosPorSegundo, Long segundosRestantes) {
+    }
+
+    private final JasperService jasperService;
+    private final ClienteService clienteService;
+    private final Path diretorio;
+    private final int tamanhoDoLote;
+    private final ExecutorService coordenador;
+    private final ExecutorService executor;
+
+    private final AtomicReference<Execucao> atual = new AtomicReference<>();
+
+    public ExtratoMensalService(JasperService jasperService,
+                                ClienteService clienteService,
+                                @Value("${estacionamento.extrato.diretorio:${java.io.tmpdir}/demo-park-extratos}") Path diretorio,
+                                @Value("${estacionamento.extrato.threads:2}") int threads,
+                                @Value("${estacionamento.extrato.lote:500}") int tamanhoDoLote) {
+        this.jasperService = jasperService;
+        this.clienteService = clienteService;
+        this.diretorio = diretorio;
+        this.tamanhoDoLote = tamanhoDoLote;
+        this.coordenador = Executors.newSingleThreadExecutor(tarefa -> criarThread(tarefa, "extrato-lotes"));
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads,
+                tarefa -> criarThread(tarefa, "extrato-" + contador.incrementAndGet()));
+    }
+
+    public Progresso iniciar(YearMonth mes) {
+        if (!mes.isBefore(YearMonth.now())) {
+            throw new MesNaoEncerradoException(String.format("O mês %s ainda não foi encerrado", mes));
+        }
+        Execucao execucao = new Execucao(mes, clienteService.contarTodos());
+        Execucao anterior = atual.get();
+        if (anterior != null && anterior.status == Status.EM_ANDAMENTO) {
+            throw new RelatorioIndisponivelException(
+                    String.format("Geração dos extratos de %s em andamento", anterior.mes));
+        }
+        if (!atual.compareAndSet(anterior, execucao)) {
+            throw new RelatorioIndisponivelException("Geração de extratos iniciada por outra requisição");
+        }
+        coordenador.execute(() -> executar(execucao));
+        return execucao.progresso();
+    }
+
+    public Progresso consultar(YearMonth mes) {
+        return buscar(mes).progresso();
+    }
+
+    public Progresso cancelar(YearMonth mes) {
+        Execucao execucao = buscar(mes);
+        execucao.cancelada = true;
+        return execucao.progresso();
+    }
+
+    public Path buscarPasta(YearMonth mes) {
+        Path pasta = diretorio.resolve(mes.toString());
+        if (!Files.isDirectory(pasta)) {
+            throw new EntityNotFoundException(String.format("Nenhum extrato de %s encontrado", mes));
+        }
+        return pasta;
+    }
+
+    /**
+     * Escreve em {@code saida} um zip com os extratos já gerados da {@code pasta}. A saída não é fechada.
+     */
+    public void compactar(Path pasta, OutputStream saida) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(saida);
+        try (Stream<Path> arquivos = Files.list(pasta)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.filter(a -> a.toString().endsWith(".pdf"))::iterator) {
+                zip.putNextEntry(new ZipEntry(arquivo.getFileName().toString()));
+                Files.copy(arquivo, zip);
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        Execucao execucao = atual.get();
+        if (execucao != null) {
+            execucao.cancelada = true;
+        }
+        coordenador.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private Execucao buscar(YearMonth mes) {
+        Execucao execucao = atual.get();
+        if (execucao == null || !execucao.mes.equals(mes)) {
+            throw new EntityNotFoundException(String.format("Nenhuma geração de extratos de %s encontrada", mes));
+        }
+        return execucao;
+    }
+
+    private void executar(Execucao execucao) {
+        log.info("Gerando extratos de {} para {} clientes", execucao.mes, execucao.total);
+        try {
+            Path pasta = Files.createDirectories(diretorio.resolve(execucao.mes.toString()));
+            long ultimoId = 0;
+            List<ClienteProjection> lote = clienteService.buscarLoteAposId(ultimoId, tamanhoDoLote);
+            while (!lote.isEmpty() && !execucao.cancelada) {
+                List<CompletableFuture<Void>> extratos = new ArrayList<>(lote.size());
+                for (ClienteProjection cliente : lote) {
+                    extratos.add(CompletableFuture.runAsync(() -> gerar(execucao, pasta, cliente.getCpf()), executor));
+                }
+                CompletableFuture.allOf(extratos.toArray(CompletableFuture[]::new)).join();
+                ultimoId = lote.get(lote.size() - 1).getId();
+                lote = clienteService.buscarLoteAposId(ultimoId, tamanhoDoLote);
+            }
+            execucao.concluir(execucao.cancelada ? Status.CANCELADO : Status.CONCLUIDO);
+        } catch (RuntimeException | IOException ex) {
+            log.error("Falha na geração dos extratos de {}", execucao.mes, ex);
+            execucao.concluir(Status.ERRO);
+        }
+        Progresso progresso = execucao.progresso();
+        log.info("Extratos de {} {}: {} gerados, {} existentes, {} falhas", progresso.mes(), progresso.status(),
+                progresso.gerados(), progresso.existentes(), progresso.falhas());
+    }
+
+    private void gerar(Execucao execucao, Path pasta, String cpf) {
+        Path destino = pasta.resolve(cpf + ".pdf");
+        try {
+            if (execucao.cancelada) {
+                return;
+            }
+            if (Files.exists(destino)) {
+                execucao.existentes.increment();
+                return;
+            }
+            ArquivoUtils.gravar(destino, saida -> jasperService.gerarExtratoPdf(cpf, execucao.mes, saida));
+            execucao.gerados.increment();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Falha no extrato de {} do cliente {}: {}", execucao.mes, cpf, ex.getMessage());
+            execucao.falhas.increment();
+        } finally {
+            execucao.processados.increment();
+        }
+    }
+
+    private static Thread criarThread(Runnable tarefa, String nome) {
+        Thread thread = new Thread(tarefa, nome);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class Execucao {
+
+        private final YearMonth mes;
+        private final long total;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private final long inicioNanos = System.nanoTime();
+        private final LongAdder processados = new LongAdder();
+        private final LongAdder gerados = new LongAdder();
+        private final LongAdder existentes = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+        private volatile Status status = Status.EM_ANDAMENTO;
+        private volatile boolean cancelada;
+        private volatile LocalDateTime fim;
+        private volatile long fimNanos;
+
+        Execucao(YearMonth mes, long total) {
+            this.mes = mes;
+            this.total = total;
+        }
+
+        void concluir(Status status) {
+            this.fimNanos = System.nanoTime();
+            this.fim = LocalDateTime.now();
+            this.status = status;
+        }
+
+        // Extratos já existentes não entram na taxa: pulá-los não diz quanto falta para gerar o restante.
+        Progresso progresso() {
+            long feitos = processados.sum();
+            long gerando = feitos - existentes.sum();
+            double segundos = Duration.ofNanos((fim != null ? fimNanos : System.nanoTime()) - inicioNanos).toMillis() / 1000.0;
+            double taxa = segundos > 0 ? gerando / segundos : 0;
+            Long restantes = status == Status.EM_ANDAMENTO && taxa > 0
+                    ? (long) Math.ceil(Math.max(total - feitos, 0) / taxa)
+                    : null;
+            return new Progresso(mes, status, total, feitos, gerados.sum(), existentes.sum(), falhas.sum(),
+                    inicio, fim, taxa, restantes);
+        }
+    }
+}
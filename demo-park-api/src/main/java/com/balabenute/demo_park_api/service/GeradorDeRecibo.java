@@ -0,0 +1,16 @@
+package com.balabenute.demo_park_api.service;
+
+/**
+ * Gera o número do recibo de um check-in. O valor deve ser único entre threads e entre instâncias
+ * da aplicação e caber na coluna {@code numero_recibo} (15 caracteres).
+ */
+public interface GeradorDeRecibo {
+
+    String gerar();
+
+    /**
+     * Garante que os próximos recibos sejam posteriores a {@code recibo}, o último já gravado. Chamado na
+     * inicialização, para que um reinício com o relógio atrasado não repita recibos.
+     */
+    void continuarApos(String recibo);
+}
@@ -0,0 +1,78 @@
+package com.balabenute.demo_park_api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recibo no formato "snowflake": 41 bits de milissegundos desde 2024-01-01, 10 bits com o número
+ * da instância ({@code estacionamento.recibo.no}) e 12 bits de sequência, codificados em base 36
+ * com 13 caracteres.
+ * <p>
+ * Cada instância gera até 4096 recibos por milissegundo. Quando a sequência se esgota, ou o
+ * relógio volta no tempo, o gerador avança para o milissegundo seguinte em vez de esperar. Como
+ * assim ele pode gerar recibos de milissegundos futuros, na inicialização ele continua a partir do
+ * último recibo gravado ({@link #continuarApos(String)}).
+ */
+@Component
+public class GeradorDeReciboSequencial implements GeradorDeRecibo {
+
+    private static final long EPOCA = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int BITS_NO = 10;
+    private static final int BITS_SEQUENCIA = 12;
+    private static final long MAXIMO_NO = (1L << BITS_NO) - 1;
+    private static final int TAMANHO = 13;
+    private static final byte[] DIGITOS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private final long no;
+    // Milissegundo e sequência do último recibo, no mesmo long, para avançar com um único CAS.
+    private final AtomicLong ultimo = new AtomicLong();
+
+    public GeradorDeReciboSequencial(@Value("${estacionamento.recibo.no:0}") long no) {
+        if (no < 0 || no > MAXIMO_NO) {
+            throw new IllegalArgumentException(
+                    String.format("estacionamento.recibo.no deve estar entre 0 e %d", MAXIMO_NO));
+        }
+        this.no = no;
+    }
+
+    @Override
+    public String gerar() {
+        long agora = System.currentTimeMillis() - EPOCA;
+        long atual;
+        long proximo;
+        do {
+            atual = ultimo.get();
+            proximo = agora > (atual >>> BITS_SEQUENCIA) ? agora << BITS_SEQUENCIA : atual + 1;
+        } while (!ultimo.compareAndSet(atual, proximo));
+
+        long milissegundo = proximo >>> BITS_SEQUENCIA;
+        long sequencia = proximo & ((1L << BITS_SEQUENCIA) - 1);
+        return codificar((milissegundo << (BITS_NO + BITS_SEQUENCIA)) | (no << BITS_SEQUENCIA) | sequencia);
+    }
+
+    @Override
+    public void continuarApos(String recibo) {
+        long valor;
+        try {
+            valor = Long.parseLong(recibo, 36);
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        // Sequência no máximo: o próximo recibo no mesmo milissegundo passa para o seguinte.
+        long milissegundo = valor >>> (BITS_NO + BITS_SEQUENCIA);
+        ultimo.accumulateAndGet((milissegundo << BITS_SEQUENCIA) | ((1L << BITS_SEQUENCIA) - 1), Math::max);
+    }
+
+    private static String codificar(long valor) {
+        byte[] recibo = new byte[TAMANHO];
+        for (int i = TAMANHO - 1; i >= 0; i--) {
+            recibo[i] = DIGITOS[(int) (valor % 36)];
+            valor /= 36;
+        }
+        return new String(recibo, StandardCharsets.US_ASCII);
+    }
+}
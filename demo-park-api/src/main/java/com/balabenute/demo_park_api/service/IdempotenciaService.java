@@ -0,0 +1,134 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.Idempotencia;
+import com.balabenute.demo_park_api.exception.ChaveIdempotenciaInvalidaException;
+import com.balabenute.demo_park_api.repository.IdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executa check-in e check-out uma única vez por Idempotency-Key.
+ * <p>
+ * Na mesma instância, a repetição é respondida pelo {@link CacheDeIdempotencia}. Com
+ * {@code estacionamento.idempotencia.persistente=true}, a chave também é gravada na tabela
+ * {@code idempotencias} na mesma transação da operação, com a referência (recibo) do resultado:
+ * em outra instância a repetição encontra a chave, ou perde na chave primária e tem a transação
+ * desfeita, e o resultado é recarregado pelo recibo.
+ * <p>
+ * A chave guarda também o hash do corpo da requisição; repetir a chave com outro corpo resulta em
+ * {@link ChaveIdempotenciaInvalidaException} (422).
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final CacheDeIdempotencia cache;
+    private final IdempotenciaRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean persistente;
+    private final Duration ttl;
+
+    public IdempotenciaService(CacheDeIdempotencia cache,
+                               IdempotenciaRepository repository,
+                               ObjectMapper objectMapper,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${estacionamento.idempotencia.persistente:false}") boolean persistente,
+                               @Value("${estacionamento.idempotencia.ttl:24h}") Duration ttl) {
+        this.cache = cache;
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.persistente = persistente;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param operacao   escopo da chave, por exemplo "check-in" ou "check-out:{recibo}"
+     * @param chave      valor do header Idempotency-Key; quando nulo a operação é executada normalmente
+     * @param corpo      corpo da requisição, ou {@code null} quando não houver; a chave não pode ser
+     *                   repetida com outro corpo
+     * @param executar   operação transacional a proteger
+     * @param referencia extrai do resultado o recibo gravado com a chave
+     * @param recarregar reconstrói o resultado a partir do recibo quando a chave já foi usada em outra instância
+     */
+    public <T> T executar(String operacao, String chave, Object corpo, Supplier<T> executar,
+                          Function<T, String> referencia, Function<String, T> recarregar) {
+        if (chave == null) {
+            return executar.get();
+        }
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ChaveIdempotenciaInvalidaException(String.format(
+                    "Idempotency-Key deve ter entre 1 e %d caracteres", TAMANHO_MAXIMO_CHAVE));
+        }
+        String id = operacao + ":" + chave;
+        String hash = hash(corpo);
+        return cache.obter(id, hash, () -> persistente
+                ? executarPersistente(id, hash, executar, referencia, recarregar)
+                : executar.get());
+    }
+
+    private <T> T executarPersistente(String id, String hash, Supplier<T> executar,
+                                      Function<T, String> referencia, Function<String, T> recarregar) {
+        Optional<Idempotencia> existente = repository.findById(id);
+        if (existente.isPresent()) {
+            return repetir(existente.get(), hash, recarregar);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                T resultado = executar.get();
+                repository.saveAndFlush(new Idempotencia(id, referencia.apply(resultado), hash, LocalDateTime.now()));
+                return resultado;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // Outra instância gravou a mesma chave primeiro; esta transação foi desfeita.
+            return repository.findById(id)
+                    .map(idempotencia -> repetir(idempotencia, hash, recarregar))
+                    .orElseThrow(() -> ex);
+        }
+    }
+
+    private static <T> T repetir(Idempotencia idempotencia, String hash, Function<String, T> recarregar) {
+        // Registros gravados antes do hash não são conferidos.
+        if (idempotencia.getHashRequisicao() != null && !idempotencia.getHashRequisicao().equals(hash)) {
+            throw new ChaveIdempotenciaInvalidaException("Idempotency-Key já usada com outra requisição");
+        }
+        return recarregar.apply(idempotencia.getReferencia());
+    }
+
+    private String hash(Object corpo) {
+        try {
+            byte[] json = corpo != null ? objectMapper.writeValueAsBytes(corpo) : new byte[0];
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${estacionamento.idempotencia.limpeza-ms:3600000}")
+    @Transactional
+    public void removerChavesExpiradas() {
+        if (persistente) {
+            int removidas = repository.deleteByDataCriacaoBefore(LocalDateTime.now().minus(ttl));
+            log.debug("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.balabenute.demo_park_api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória dos estacionamentos abertos por número de recibo. É preenchido depois do
+ * commit do check-in, esvaziado depois do commit do check-out e recarregado na inicialização.
+ * <p>
+ * Um recibo ausente não significa que o estacionamento não exista (por exemplo, inserido por
+ * outra instância): o {@link ClienteVagaService} consulta o banco nesses casos. Da mesma forma, um
+ * recibo presente pode já ter saída registrada por outra instância: com várias instâncias, a consulta
+ * por recibo pode confirmar o estacionamento aberto no banco ({@code estacionamento.indice.confirmar-no-banco}),
+ * e o check-out é sempre gravado por um UPDATE condicional, então uma entrada desatualizada não fecha
+ * um estacionamento duas vezes.
+ */
+@Slf4j
+@Component
+public class IndiceDeEstacionamentosAbertos {
+
+    private final Map<String, EstacionamentoAberto> abertos = new ConcurrentHashMap<>();
+
+    public void recarregar(Collection<EstacionamentoAberto> estacionamentos) {
+        abertos.clear();
+        estacionamentos.forEach(this::adicionar);
+        log.info("Índice de estacionamentos abertos carregado com {} recibos", abertos.size());
+    }
+
+    public void adicionar(EstacionamentoAberto estacionamento) {
+        abertos.put(estacionamento.recibo(), estacionamento);
+    }
+
+    public void remover(String recibo) {
+        abertos.remove(recibo);
+    }
+
+    public EstacionamentoAberto buscar(String recibo) {
+        return abertos.get(recibo);
+    }
+}
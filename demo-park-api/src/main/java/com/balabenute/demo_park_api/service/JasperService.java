@@ -1,52 +1,197 @@
 package com.balabenute.demo_park_api.service;
 
-import lombok.RequiredArgsConstructor;
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
 import lombok.extern.slf4j.Slf4j;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
-import org.springframework.core.io.Resource;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Gera o relatório de estacionamentos de um cliente.
+ * <p>
+ * O template compilado é carregado uma única vez e compartilhado: um {@link JasperReport} não muda
+ * durante o preenchimento. Os parâmetros são criados a cada chamada, então relatórios simultâneos
+ * não se misturam. Cada preenchimento usa uma conexão do pool, devolvida ao final, e no máximo
+ * {@code estacionamento.relatorio.concorrencia} relatórios são preenchidos ao mesmo tempo, para que
+ * relatórios não esgotem as conexões usadas pelo resto da API.
+ * <p>
+ * Os extratos mensais em lote usam no máximo {@code estacionamento.extrato.concorrencia} dessas
+ * vagas, sempre menos que o total, e esperam por elas sem prazo: o relatório pedido pelo cliente
+ * sempre encontra uma vaga livre durante um lote.
+ */
 @Slf4j
-@RequiredArgsConstructor
 @Service
 public class JasperService {
 
-    private final ResourceLoader resourceLoader;
+    private static final String JASPER_DIRETORIO = "classpath:reports/";
+    private static final Locale LOCALE = new Locale("pt", "BR");
+
     private final DataSource dataSource;
+    private final JasperReport relatorio;
+    private final Semaphore permissoes;
+    private final Semaphore permissoesDeExtrato;
+    private final long esperaMs;
+    private final int paginasEmMemoria;
+    private final String diretorioDeTroca;
 
-    private Map<String, Object> params = new HashMap<>();
+    public JasperService(ResourceLoader resourceLoader,
+                         DataSource dataSource,
+                         @Value("${estacionamento.relatorio.concorrencia:4}") int concorrencia,
+                         @Value("${estacionamento.extrato.concorrencia:2}") int concorrenciaDeExtratos,
+                         @Value("${estacionamento.relatorio.espera-ms:10000}") long esperaMs,
+                         @Value("${estacionamento.relatorio.virtualizador.paginas:50}") int paginasEmMemoria,
+                         @Value("${estacionamento.relatorio.virtualizador.diretorio:${java.io.tmpdir}}") String diretorioDeTroca) {
+        this.dataSource = dataSource;
+        this.relatorio = carregar(resourceLoader, "estacionamentos.jasper");
+        this.permissoes = new Semaphore(concorrencia, true);
+        this.permissoesDeExtrato = new Semaphore(Math.max(1, Math.min(concorrenciaDeExtratos, concorrencia - 1)), true);
+        this.esperaMs = esperaMs;
+        this.paginasEmMemoria = paginasEmMemoria;
+        this.diretorioDeTroca = diretorioDeTroca;
+    }
 
-    private static final String JASPER_DIRETORIO = "classpath:reports/";
+    /**
+     * Preenche o relatório e exporta o PDF direto para {@code saida}, sem montar o arquivo em memória.
+     * Com o virtualizador ativo, só {@code virtualizador.paginas} páginas preenchidas ficam no heap;
+     * as demais vão para um arquivo de troca apagado ao final.
+     */
+    public void gerarPdf(String cpf, OutputStream saida) {
+        exportar(saida, virtualizador -> preencher(cpf, virtualizador));
+    }
+
+    /**
+     * Como {@link #gerarPdf(String, OutputStream)}, mas só com os estacionamentos com entrada no mês,
+     * filtrados pelos parâmetros {@code MES_INICIO} e {@code MES_FIM} do template.
+     */
+    public void gerarExtratoPdf(String cpf, YearMonth mes, OutputStream saida) {
+        exportar(saida, virtualizador -> preencherExtrato(cpf, mes, virtualizador));
+    }
+
+    public JasperPrint preencher(String cpf) {
+        return preencher(cpf, null);
+    }
 
-    public void addParams(String key, Object value) {
-        this.params.put("IMAGEM_DIRETORIO", JASPER_DIRETORIO);
-        this.params.put("REPORT_LOCALE", new Locale("pt", "BR"));
-        this.params.put(key, value);
+    private JasperPrint preencher(String cpf, JRVirtualizer virtualizador) {
+        Map<String, Object> params = parametros(cpf, virtualizador);
+        adquirirPermissao();
+        try {
+            return preencher(params);
+        } finally {
+            permissoes.release();
+        }
     }
 
-    public byte[] gerarPdf() {
-        byte[] bytes = null;
+    private JasperPrint preencherExtrato(String cpf, YearMonth mes, JRVirtualizer virtualizador) {
+        Map<String, Object> params = parametros(cpf, virtualizador);
+        params.put("MES_INICIO", Timestamp.valueOf(mes.atDay(1).atStartOfDay()));
+        params.put("MES_FIM", Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay()));
+        adquirirPermissaoDeExtrato();
         try {
-            Resource resource = resourceLoader.getResource(JASPER_DIRETORIO.concat("estacionamentos.jasper"));
-            InputStream stream = resource.getInputStream();
-            JasperPrint print = JasperFillManager.fillReport(stream, params, dataSource.getConnection());
-            bytes = JasperExportManager.exportReportToPdf(print);
-        } catch (IOException | JRException | SQLException e) {
-            log.error("Jasper Reports ::: ", e.getCause());
+            return preencher(params);
+        } finally {
+            permissoes.release();
+            permissoesDeExtrato.release();
+        }
+    }
+
+    private JasperPrint preencher(Map<String, Object> params) {
+        try (Connection connection = dataSource.getConnection()) {
+            return JasperFillManager.fillReport(relatorio, params, connection);
+        } catch (JRException | SQLException e) {
+            log.error("Jasper Reports ::: ", e);
             throw new RuntimeException(e);
         }
-        return bytes;
     }
-}
\ No newline at end of file
+
+    private void exportar(OutputStream saida, Function<JRVirtualizer, JasperPrint> preenchimento) {
+        JRSwapFileVirtualizer virtualizador = paginasEmMemoria > 0
+                ? new JRSwapFileVirtualizer(paginasEmMemoria, new JRSwapFile(diretorioDeTroca, 4096, 64), true)
+                : null;
+        try {
+            JasperPrint print = preenchimento.apply(virtualizador);
+            if (virtualizador != null) {
+                virtualizador.setReadOnly(true);
+            }
+            JasperExportManager.exportReportToPdfStream(print, saida);
+        } catch (JRException e) {
+            log.error("Jasper Reports ::: ", e);
+            throw new RuntimeException(e);
+        } finally {
+            if (virtualizador != null) {
+                virtualizador.cleanup();
+            }
+        }
+    }
+
+    private static Map<String, Object> parametros(String cpf, JRVirtualizer virtualizador) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("IMAGEM_DIRETORIO", JASPER_DIRETORIO);
+        params.put(JRParameter.REPORT_LOCALE, LOCALE);
+        params.put("CPF", cpf);
+        if (virtualizador != null) {
+            params.put(JRParameter.REPORT_VIRTUALIZER, virtualizador);
+        }
+        return params;
+    }
+
+    private void adquirirPermissao() {
+        try {
+            if (!permissoes.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw new ServicoSobrecarregadoException("Muitos relatórios em geração, tente novamente em instantes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Geração do relatório interrompida.");
+        }
+    }
+
+    // Lotes não têm pressa: esperam primeiro pela cota de extratos e depois por uma vaga do total.
+    private void adquirirPermissaoDeExtrato() {
+        try {
+            permissoesDeExtrato.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Geração do extrato interrompida.");
+        }
+        try {
+            permissoes.acquire();
+        } catch (InterruptedException e) {
+            permissoesDeExtrato.release();
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Geração do extrato interrompida.");
+        }
+    }
+
+    private static JasperReport carregar(ResourceLoader resourceLoader, String arquivo) {
+        try (InputStream stream = resourceLoader.getResource(JASPER_DIRETORIO.concat(arquivo)).getInputStream()) {
+            return (JasperReport) JRLoader.loadObject(stream);
+        } catch (IOException | JRException e) {
+            throw new IllegalStateException("Não foi possível carregar o relatório " + arquivo, e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.balabenute.demo_park_api.service;
+
+import java.util.List;
+
+// Página da paginação por chave; total só é calculado quando solicitado.
+public record PaginaPorCursor<T>(List<T> conteudo, int tamanho, String proximoCursor, Long total) {
+}
@@ -0,0 +1,140 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link PasswordEncoder} da aplicação: o BCrypt roda em um pool próprio de {@code threads}
+ * threads com fila de até {@code fila} tarefas, e não nas threads do Tomcat. Com a fila cheia a
+ * operação é recusada na hora com {@link ServicoSobrecarregadoException} (503), para que uma
+ * rajada de logins não consuma a CPU e as threads usadas pelo restante da API.
+ * <p>
+ * O custo do BCrypt vem de {@code estacionamento.senha.bcrypt-custo}; hashes gravados com outro
+ * custo continuam sendo conferidos normalmente.
+ */
+@Slf4j
+@Component
+public class ProcessadorDeSenhas implements PasswordEncoder {
+
+    public record Metricas(long operacoes, long rejeitadas, double latenciaMediaMs, double latenciaMaximaMs,
+                           int fila, int ativas) {
+    }
+
+    // Threads do pool; marcam a instância dona para que encode/matches saibam que já estão no pool.
+    private static final class ThreadDeSenha extends Thread {
+
+        private final ProcessadorDeSenhas dono;
+
+        private ThreadDeSenha(ProcessadorDeSenhas dono, Runnable tarefa, String nome) {
+            super(tarefa, nome);
+            this.dono = dono;
+        }
+    }
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder operacoes = new LongAdder();
+    private final LongAdder nanosTotal = new LongAdder();
+    private final LongAccumulator nanosMaximo = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejeitadas = new LongAdder();
+
+    public ProcessadorDeSenhas(@Value("${estacionamento.senha.bcrypt-custo:10}") int custo,
+                               @Value("${estacionamento.senha.threads:0}") int threads,
+                               @Value("${estacionamento.senha.fila:100}") int fila) {
+        int total = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.encoder = new BCryptPasswordEncoder(custo);
+        this.executor = new ThreadPoolExecutor(total, total, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(fila, 1)),
+                tarefa -> {
+                    Thread thread = new ThreadDeSenha(this, tarefa, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executarEAguardar(() -> medir(() -> encoder.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executarEAguardar(() -> medir(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Executa {@code operacao} no pool, liberando a thread chamadora. Dentro dela, {@link #encode}
+     * e {@link #matches} rodam direto, sem ocupar uma segunda posição na fila.
+     */
+    public <T> CompletableFuture<T> executar(Supplier<T> operacao) {
+        try {
+            return CompletableFuture.supplyAsync(operacao, executor);
+        } catch (RejectedExecutionException ex) {
+            rejeitadas.increment();
+            log.warn("Fila do BCrypt cheia ({} tarefas); operação recusada", executor.getQueue().size());
+            throw new ServicoSobrecarregadoException("Serviço de autenticação sobrecarregado, tente novamente em instantes.");
+        }
+    }
+
+    public Metricas consultarMetricas() {
+        long total = operacoes.sum();
+        double media = total == 0 ? 0 : nanosTotal.sum() / (double) total / 1_000_000;
+        return new Metricas(total, rejeitadas.sum(), media, nanosMaximo.get() / 1_000_000.0,
+                executor.getQueue().size(), executor.getActiveCount());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    private <T> T executarEAguardar(Supplier<T> operacao) {
+        if (Thread.currentThread() instanceof ThreadDeSenha thread && thread.dono == this) {
+            return operacao.get();
+        }
+        try {
+            return executar(operacao).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+    }
+
+    private <T> T medir(Supplier<T> operacao) {
+        long inicio = System.nanoTime();
+        try {
+            return operacao.get();
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            operacoes.increment();
+            nanosTotal.add(nanos);
+            nanosMaximo.accumulate(nanos);
+        }
+    }
+}
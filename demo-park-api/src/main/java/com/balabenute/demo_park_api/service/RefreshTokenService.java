@@ -0,0 +1,107 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.RefreshToken;
+import com.balabenute.demo_park_api.entity.Usuario;
+import com.balabenute.demo_park_api.exception.RefreshTokenInvalidoException;
+import com.balabenute.demo_park_api.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos (256 bits aleatórios) com rotação: cada renovação revoga o token usado e
+ * emite outro da mesma família. A verificação é uma busca pelo SHA-256 do token no índice único
+ * de {@code refresh_tokens}, sem BCrypt.
+ * <p>
+ * Um token já revogado que volta a ser usado indica que ele vazou, e a família inteira é revogada.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    public record Renovacao(Usuario usuario, String refreshToken) {
+    }
+
+    private static final String TOKEN_INVALIDO = "Refresh token inválido, expirado ou revogado.";
+
+    private final SecureRandom random = new SecureRandom();
+    private final RefreshTokenRepository repository;
+    private final Duration validade;
+
+    public RefreshTokenService(RefreshTokenRepository repository,
+                               @Value("${estacionamento.jwt.refresh.validade:30d}") Duration validade) {
+        this.repository = repository;
+        this.validade = validade;
+    }
+
+    @Transactional
+    public String emitir(Usuario usuario) {
+        return emitir(usuario, UUID.randomUUID().toString());
+    }
+
+    // Sem rollback na recusa: a revogação da família por reutilização precisa ser gravada.
+    @Transactional(noRollbackFor = RefreshTokenInvalidoException.class)
+    public Renovacao renovar(String refreshToken) {
+        RefreshToken atual = repository.findByHash(hash(refreshToken)).orElseThrow(
+                () -> new RefreshTokenInvalidoException(TOKEN_INVALIDO));
+        LocalDateTime agora = LocalDateTime.now();
+        if (repository.revogarSeValido(atual.getId(), agora) == 0) {
+            // Recusado sem estar expirado: o token já tinha sido revogado e está sendo reutilizado.
+            if (atual.getDataExpiracao().isAfter(agora)) {
+                int revogados = repository.revogarFamilia(atual.getFamilia(), agora);
+                log.warn("Refresh token revogado reutilizado pelo usuário id={}; {} tokens da família revogados",
+                        atual.getUsuario().getId(), revogados);
+            }
+            throw new RefreshTokenInvalidoException(TOKEN_INVALIDO);
+        }
+        return new Renovacao(atual.getUsuario(), emitir(atual.getUsuario(), atual.getFamilia()));
+    }
+
+    @Transactional
+    public void revogar(String refreshToken) {
+        repository.findByHash(hash(refreshToken))
+                .ifPresent(token -> repository.revogarFamilia(token.getFamilia(), LocalDateTime.now()));
+    }
+
+    @Transactional
+    public void revogarPorUsuario(Long usuarioId) {
+        repository.revogarPorUsuario(usuarioId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${estacionamento.jwt.refresh.limpeza-ms:3600000}")
+    @Transactional
+    public void removerTokensExpirados() {
+        int removidos = repository.deleteByDataExpiracaoBefore(LocalDateTime.now());
+        log.debug("{} refresh tokens expirados removidos", removidos);
+    }
+
+    private String emitir(Usuario usuario, String familia) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime agora = LocalDateTime.now();
+        repository.save(new RefreshToken(null, hash(token), familia, usuario, agora, agora.plus(validade), null));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
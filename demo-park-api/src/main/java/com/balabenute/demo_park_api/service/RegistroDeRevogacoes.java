@@ -0,0 +1,85 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.RevogacaoToken;
+import com.balabenute.demo_park_api.utils.FiltroDeBloom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revogações de tokens em memória, consultadas a cada requisição pelo filtro JWT.
+ * <p>
+ * Os jti revogados ficam em um conjunto exato com um {@link FiltroDeBloom} à frente: um token não
+ * revogado quase sempre é descartado pelo filtro, sem consultar o conjunto. As revogações por
+ * usuário guardam o instante de corte; tokens emitidos antes dele são recusados.
+ * <p>
+ * O {@link RevogacaoDeTokensService} mantém o registro em dia com a tabela revogacoes_token.
+ */
+@Slf4j
+@Component
+public class RegistroDeRevogacoes {
+
+    private record Estado(FiltroDeBloom filtro, Set<String> jtis, Map<Long, Long> cortes) {
+    }
+
+    private static final double PROBABILIDADE_FALSO_POSITIVO = 0.01;
+
+    private final int capacidade;
+    private volatile Estado estado;
+
+    public RegistroDeRevogacoes(@Value("${estacionamento.jwt.revogacao.capacidade:100000}") int capacidade) {
+        this.capacidade = capacidade;
+        this.estado = novoEstado(0);
+    }
+
+    public void recarregar(Collection<RevogacaoToken> revogacoes) {
+        Estado novo = novoEstado(revogacoes.size());
+        revogacoes.forEach(revogacao -> registrar(novo, revogacao));
+        this.estado = novo;
+        log.info("Registro de revogações carregado com {} tokens e {} usuários", novo.jtis().size(), novo.cortes().size());
+    }
+
+    public void registrar(RevogacaoToken revogacao) {
+        registrar(estado, revogacao);
+    }
+
+    /**
+     * @param emitidoEm instante de emissão do token (iat), em milissegundos
+     */
+    public boolean revogado(String jti, Long usuarioId, long emitidoEm) {
+        Estado atual = this.estado;
+        if (jti != null && atual.filtro().talvezContenha(jti) && atual.jtis().contains(jti)) {
+            return true;
+        }
+        if (usuarioId == null || atual.cortes().isEmpty()) {
+            return false;
+        }
+        Long corte = atual.cortes().get(usuarioId);
+        return corte != null && emitidoEm < corte;
+    }
+
+    private static void registrar(Estado estado, RevogacaoToken revogacao) {
+        if (revogacao.getJti() != null) {
+            estado.filtro().adicionar(revogacao.getJti());
+            estado.jtis().add(revogacao.getJti());
+        }
+        if (revogacao.getUsuarioId() != null) {
+            long corte = revogacao.getDataRevogacao().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            estado.cortes().merge(revogacao.getUsuarioId(), corte, Math::max);
+        }
+    }
+
+    // O filtro é dimensionado com folga sobre o número atual de revogações para aceitar as novas
+    // até a próxima recarga sem aumentar a taxa de falsos positivos.
+    private Estado novoEstado(int revogacoes) {
+        int tamanho = Math.max(capacidade, revogacoes * 2);
+        return new Estado(new FiltroDeBloom(tamanho, PROBABILIDADE_FALSO_POSITIVO),
+                ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+    }
+}
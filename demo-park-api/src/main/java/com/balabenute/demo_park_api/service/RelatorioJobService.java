@@ -0,0 +1,149 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.exception.EntityNotFoundException;
+import com.balabenute.demo_park_api.exception.RelatorioIndisponivelException;
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Geração assíncrona do relatório de estacionamentos. {@link #submeter} devolve um job na hora e o
+ * PDF é gerado pelo {@link JasperService} em um pool próprio de {@code threads} threads, com fila de
+ * até {@code fila} jobs; com a fila cheia o pedido é recusado com {@link ServicoSobrecarregadoException}
+ * (503). Assim relatórios grandes não ocupam as threads do Tomcat usadas por check-in e check-out.
+ * <p>
+ * O PDF fica no {@link ArmazenamentoDeRelatorios} e o job é descartado após {@code ttl}. Os jobs
+ * ficam em memória: só a instância que recebeu o pedido responde por ele.
+ */
+@Slf4j
+@Service
+public class RelatorioJobService {
+
+    public enum Status {
+        PENDENTE, PROCESSANDO, CONCLUIDO, ERRO, EXPIRADO
+    }
+
+    public record RelatorioJob(String id, Long usuarioId, String cpf, Status status, LocalDateTime dataCriacao,
+                               LocalDateTime dataConclusao, Long tamanho, String erro) {
+
+        RelatorioJob com(Status status, Long tamanho, String erro) {
+            LocalDateTime conclusao = status == Status.PROCESSANDO ? null : LocalDateTime.now();
+            return new RelatorioJob(id, usuarioId, cpf, status, dataCriacao, conclusao, tamanho, erro);
+        }
+    }
+
+    private final JasperService jasperService;
+    private final ArmazenamentoDeRelatorios armazenamento;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, RelatorioJob> jobs = new ConcurrentHashMap<>();
+
+    public RelatorioJobService(JasperService jasperService,
+                               ArmazenamentoDeRelatorios armazenamento,
+                               @Value("${estacionamento.relatorio.jobs.threads:2}") int threads,
+                               @Value("${estacionamento.relatorio.jobs.fila:20}") int fila,
+                               @Value("${estacionamento.relatorio.jobs.ttl:1h}") Duration ttl) {
+        this.jasperService = jasperService;
+        this.armazenamento = armazenamento;
+        this.ttl = ttl;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(fila, 1)),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "relatorio-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public RelatorioJob submeter(Long usuarioId, String cpf) {
+        RelatorioJob job = new RelatorioJob(UUID.randomUUID().toString(), usuarioId, cpf, Status.PENDENTE,
+                LocalDateTime.now(), null, null, null);
+        jobs.put(job.id(), job);
+        try {
+            executor.execute(() -> gerar(job.id()));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id());
+            log.warn("Fila de relatórios cheia ({} jobs); pedido recusado", executor.getQueue().size());
+            throw new ServicoSobrecarregadoException("Muitos relatórios na fila, tente novamente em instantes.");
+        }
+        return job;
+    }
+
+    public RelatorioJob buscarPorId(String id, Long usuarioId) {
+        RelatorioJob job = jobs.get(id);
+        if (job == null || !job.usuarioId().equals(usuarioId)) {
+            throw new EntityNotFoundException(String.format("Relatório %s não encontrado", id));
+        }
+        // O arquivo pode ter sido removido antes do ttl para respeitar o tamanho máximo do armazenamento.
+        if (job.status() == Status.CONCLUIDO && !armazenamento.existe(id)) {
+            return new RelatorioJob(job.id(), job.usuarioId(), job.cpf(), Status.EXPIRADO, job.dataCriacao(),
+                    job.dataConclusao(), null, null);
+        }
+        return job;
+    }
+
+    // O arquivo é aberto aqui, antes da resposta, para que uma remoção durante o envio não interrompa o download.
+    public InputStream abrirArquivo(String id, Long usuarioId) {
+        RelatorioJob job = buscarPorId(id, usuarioId);
+        if (job.status() == Status.EXPIRADO) {
+            throw new EntityNotFoundException(String.format("Relatório %s expirado", id));
+        }
+        if (job.status() != Status.CONCLUIDO) {
+            throw new RelatorioIndisponivelException(String.format("Relatório %s com status %s", id, job.status()));
+        }
+        return armazenamento.obter(id).orElseThrow(
+                () -> new EntityNotFoundException(String.format("Relatório %s expirado", id)));
+    }
+
+    @Scheduled(fixedDelayString = "${estacionamento.relatorio.jobs.limpeza-ms:60000}")
+    public void removerJobsExpirados() {
+        LocalDateTime limite = LocalDateTime.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            boolean expirado = job.dataConclusao() != null && job.dataConclusao().isBefore(limite);
+            if (expirado) {
+                armazenamento.remover(job.id());
+            }
+            return expirado;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void gerar(String id) {
+        RelatorioJob job = jobs.computeIfPresent(id, (chave, atual) -> atual.com(Status.PROCESSANDO, null, null));
+        if (job == null) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            long tamanho = armazenamento.gravar(id, saida -> jasperService.gerarPdf(job.cpf(), saida));
+            jobs.computeIfPresent(id, (chave, atual) -> atual.com(Status.CONCLUIDO, tamanho, null));
+            log.info("Relatório {} gerado com {} bytes em {} ms", id, tamanho, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Falha ao gerar o relatório {}", id, ex);
+            String erro = ex instanceof ServicoSobrecarregadoException ? ex.getMessage() : "Falha ao gerar o relatório.";
+            jobs.computeIfPresent(id, (chave, atual) -> atual.com(Status.ERRO, null, erro));
+        }
+    }
+}
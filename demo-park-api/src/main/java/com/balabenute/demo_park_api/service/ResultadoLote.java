@@ -0,0 +1,25 @@
+package com.balabenute.demo_park_api.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ResultadoLote<T> {
+
+    private final T item;
+    private final RuntimeException erro;
+
+    public static <T> ResultadoLote<T> sucesso(T item) {
+        return new ResultadoLote<>(item, null);
+    }
+
+    public static <T> ResultadoLote<T> falha(T item, RuntimeException erro) {
+        return new ResultadoLote<>(item, erro);
+    }
+
+    public boolean isSucesso() {
+        return erro == null;
+    }
+}
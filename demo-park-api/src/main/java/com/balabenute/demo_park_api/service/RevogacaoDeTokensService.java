@@ -0,0 +1,111 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.RevogacaoToken;
+import com.balabenute.demo_park_api.jwt.JwtUtils;
+import com.balabenute.demo_park_api.repository.RevogacaoTokenRepository;
+import com.balabenute.demo_park_api.utils.TransacaoUtils;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Grava as revogações de tokens de acesso e mantém o {@link RegistroDeRevogacoes} em dia: as
+ * revogações desta instância entram no registro logo após o commit, e as das demais instâncias
+ * são lidas a cada {@code estacionamento.jwt.revogacao.atualizacao-ms}, buscando só as novas.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RevogacaoDeTokensService {
+
+    // Sobreposição entre leituras incrementais, para não perder revogações gravadas por transações
+    // que fizeram commit depois de a leitura anterior começar.
+    private static final Duration SOBREPOSICAO = Duration.ofMinutes(1);
+
+    private final RevogacaoTokenRepository repository;
+    private final RegistroDeRevogacoes registro;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile LocalDateTime ultimaAtualizacao = LocalDateTime.now();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void carregarRevogacoes() {
+        LocalDateTime agora = LocalDateTime.now();
+        registro.recarregar(repository.findAllByDataExpiracaoAfter(agora));
+        ultimaAtualizacao = agora;
+    }
+
+    public void revogarToken(String jti, LocalDateTime expiracao) {
+        if (jti == null || repository.existsByJti(jti)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    salvar(new RevogacaoToken(null, jti, null, LocalDateTime.now(), expiracao)));
+        } catch (DataIntegrityViolationException ex) {
+            // Outra requisição revogou o mesmo token entre a consulta e a gravação; o jti é único.
+            log.debug("Token {} já revogado", jti);
+        }
+    }
+
+    // Revoga todos os tokens de acesso já emitidos para o usuário; a revogação só precisa durar
+    // até o último deles expirar.
+    @Transactional
+    public void revogarUsuario(Long usuarioId) {
+        LocalDateTime agora = LocalDateTime.now();
+        salvar(new RevogacaoToken(null, null, usuarioId, agora, agora.plus(JwtUtils.VALIDADE)));
+    }
+
+    // Tokens emitidos antes da inclusão do jti e do id nas claims só podem ser revogados pelo que têm.
+    public boolean revogado(Claims claims) {
+        Number usuarioId = claims.get(JwtUtils.CLAIM_ID, Number.class);
+        Number emissao = claims.get(JwtUtils.CLAIM_EMISSAO, Number.class);
+        Date emitidoEm = claims.getIssuedAt();
+        long instante = emissao != null ? emissao.longValue() : emitidoEm != null ? emitidoEm.getTime() : Long.MAX_VALUE;
+        return registro.revogado(claims.getId(), usuarioId != null ? usuarioId.longValue() : null, instante);
+    }
+
+    // Revoga o token de acesso apresentado, por exemplo no logout.
+    public void revogarToken(Claims claims) {
+        revogarToken(claims.getId(), LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+    }
+
+    @Scheduled(fixedDelayString = "${estacionamento.jwt.revogacao.atualizacao-ms:5000}",
+            initialDelayString = "${estacionamento.jwt.revogacao.atualizacao-ms:5000}")
+    @Transactional(readOnly = true)
+    public void atualizarRevogacoes() {
+        LocalDateTime agora = LocalDateTime.now();
+        repository.findAllByDataRevogacaoGreaterThanEqualAndDataExpiracaoAfter(ultimaAtualizacao.minus(SOBREPOSICAO), agora)
+                .forEach(registro::registrar);
+        ultimaAtualizacao = agora;
+    }
+
+    // O filtro de Bloom não remove valores: depois de apagar as revogações expiradas ele é recriado.
+    @Scheduled(fixedDelayString = "${estacionamento.jwt.revogacao.limpeza-ms:3600000}",
+            initialDelayString = "${estacionamento.jwt.revogacao.limpeza-ms:3600000}")
+    @Transactional
+    public void removerRevogacoesExpiradas() {
+        LocalDateTime agora = LocalDateTime.now();
+        int removidas = repository.deleteByDataExpiracaoBefore(agora);
+        registro.recarregar(repository.findAllByDataExpiracaoAfter(agora));
+        log.debug("{} revogações de token expiradas removidas", removidas);
+    }
+
+    private void salvar(RevogacaoToken revogacao) {
+        RevogacaoToken salva = repository.save(revogacao);
+        TransacaoUtils.aposCommit(() -> registro.registrar(salva));
+    }
+}
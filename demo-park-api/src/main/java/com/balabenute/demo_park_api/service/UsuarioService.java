@@ -5,11 +5,13 @@ import com.balabenute.demo_park_api.exception.EntityNotFoundException;
 import com.balabenute.demo_park_api.exception.PasswordInvalidException;
 import com.balabenute.demo_park_api.exception.UsernameUniqueViolationException;
 import com.balabenute.demo_park_api.repository.UsuarioRepository;
+import com.balabenute.demo_park_api.utils.TransacaoUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -19,11 +21,16 @@ public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheDeUsuarios cacheDeUsuarios;
+    private final RefreshTokenService refreshTokenService;
+    private final RevogacaoDeTokensService revogacaoDeTokensService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // Sem @Transactional: o hash roda no pool do BCrypt antes de uma conexão ser tomada, e o save
+    // abre a própria transação.
     public Usuario salvar(Usuario usuario) {
+        usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
         try {
-            usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
             return usuarioRepository.save(usuario);
         } catch (DataIntegrityViolationException ex) {
             throw new UsernameUniqueViolationException(String.format("Username {%s} já cadastrado", usuario.getUsername()));
@@ -37,7 +44,8 @@ public class UsuarioService {
         );
     }
 
-    @Transactional
+    // A senha atual é conferida e a nova é gerada fora da transação, que só grava o resultado: um
+    // pool do BCrypt cheio recusa a troca sem ter aberto transação nem tomado conexão.
     public Usuario editarSenha(Long id, String senhaAtual, String novaSenha, String confirmaSenha) {
 
         if (!novaSenha.equals(confirmaSenha)) {
@@ -50,7 +58,19 @@ public class UsuarioService {
         }
 
         user.setPassword(passwordEncoder.encode(novaSenha));
-        return user;
+        return transactionTemplate.execute(status -> {
+            Usuario salvo = usuarioRepository.save(user);
+            revogarTokens(id);
+            TransacaoUtils.aposCommit(() -> cacheDeUsuarios.invalidar(salvo.getUsername()));
+            return salvo;
+        });
+    }
+
+    // Invalida todas as sessões do usuário: refresh tokens e tokens de acesso já emitidos.
+    @Transactional
+    public void revogarTokens(Long id) {
+        refreshTokenService.revogarPorUsuario(id);
+        revogacaoDeTokensService.revogarUsuario(id);
     }
 
     @Transactional(readOnly = true)
@@ -65,6 +85,11 @@ public class UsuarioService {
         );
     }
 
+    // Usado a cada requisição autenticada quando o usuário não vem das claims do token.
+    public Usuario buscarPorUsernameEmCache(String username) {
+        return cacheDeUsuarios.obter(username, this::buscarPorUsername);
+    }
+
     @Transactional(readOnly = true)
     public Usuario.Role buscarRolePorUsername(String username) {
         return usuarioRepository.findRoleByUsername(username);
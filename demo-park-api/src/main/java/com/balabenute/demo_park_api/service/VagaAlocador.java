@@ -0,0 +1,134 @@
+package com.balabenute.demo_park_api.service;
+
+import com.balabenute.demo_park_api.entity.Vaga;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mapa em memória das vagas livres. Cada vaga ocupa um bit de um {@link AtomicLongArray}
+ * (1 = livre) e a reserva é feita com compare-and-set, sem locks; as inclusões e liberações,
+ * menos frequentes, passam pelo mesmo lock do crescimento dos arrays.
+ * <p>
+ * O mapa é apenas uma indicação: a fonte da verdade continua sendo a tabela de vagas,
+ * atualizada com um UPDATE condicional pelo {@link VagaService}. Uma indicação desatualizada
+ * resulta apenas em uma nova tentativa, nunca em uma vaga ocupada duas vezes. O mapa é refeito a
+ * partir da tabela a cada reconciliação do {@link VagaService}.
+ */
+@Slf4j
+@Component
+public class VagaAlocador {
+
+    private final Object lock = new Object();
+
+    private volatile Mapa mapa = new Mapa(new long[0], new String[0], new AtomicLongArray(0), new ConcurrentHashMap<>());
+
+    // Posições ocupadas nos arrays do mapa atual; só é lido e alterado com o lock.
+    private int tamanho;
+
+    public record VagaAlocada(long id, String codigo) {
+    }
+
+    public void recarregar(Collection<Vaga> vagas) {
+        synchronized (lock) {
+            long[] ids = new long[vagas.size()];
+            String[] codigos = new String[vagas.size()];
+            AtomicLongArray livres = new AtomicLongArray(palavras(vagas.size()));
+            Map<Long, Integer> indices = new ConcurrentHashMap<>();
+            int i = 0;
+            for (Vaga vaga : vagas) {
+                ids[i] = vaga.getId();
+                codigos[i] = vaga.getCodigo();
+                indices.put(vaga.getId(), i);
+                if (vaga.getStatus() == Vaga.StatusVaga.LIVRE) {
+                    livres.getAndAccumulate(i >>> 6, 1L << i, (atual, bit) -> atual | bit);
+                }
+                i++;
+            }
+            this.mapa = new Mapa(ids, codigos, livres, indices);
+            this.tamanho = ids.length;
+            log.info("Mapa de vagas carregado com {} vagas", ids.length);
+        }
+    }
+
+    // Com o lock, para que nenhuma transição caia em um array que o crescimento já copiou.
+    public void registrar(long id, String codigo, boolean livre) {
+        synchronized (lock) {
+            Mapa atual = this.mapa;
+            Integer indice = atual.indices.get(id);
+            if (indice == null) {
+                atual = adicionar(atual, id, codigo);
+                indice = atual.indices.get(id);
+            }
+            atual.codigos[indice] = codigo;
+            if (livre) {
+                atual.livres.getAndAccumulate(indice >>> 6, 1L << indice, (bits, bit) -> bits | bit);
+            } else {
+                atual.livres.getAndAccumulate(indice >>> 6, 1L << indice, (bits, bit) -> bits & ~bit);
+            }
+        }
+    }
+
+    public VagaAlocada alocar() {
+        Mapa atual = this.mapa;
+        AtomicLongArray livres = atual.livres;
+        int palavras = livres.length();
+        if (palavras == 0) {
+            return null;
+        }
+        // Começar de uma palavra aleatória espalha a disputa de CAS entre as threads.
+        int inicio = ThreadLocalRandom.current().nextInt(palavras);
+        for (int i = 0; i < palavras; i++) {
+            int palavra = (inicio + i) % palavras;
+            long bits = livres.get(palavra);
+            while (bits != 0) {
+                long bit = Long.lowestOneBit(bits);
+                if (livres.compareAndSet(palavra, bits, bits & ~bit)) {
+                    int indice = (palavra << 6) + Long.numberOfTrailingZeros(bit);
+                    return new VagaAlocada(atual.ids[indice], atual.codigos[indice]);
+                }
+                bits = livres.get(palavra);
+            }
+        }
+        return null;
+    }
+
+    public void liberar(long id, String codigo) {
+        registrar(id, codigo, true);
+    }
+
+    // Chamado com o lock. A capacidade dobra quando acaba, então a cópia dos arrays é amortizada
+    // entre as vagas incluídas depois; posições ainda sem vaga têm o bit zerado e nunca são alocadas.
+    // Só uma reserva de alocar() no array antigo pode se perder na cópia: a vaga continua marcada
+    // como livre e a segunda tentativa de ocupá-la é recusada pelo UPDATE condicional.
+    private Mapa adicionar(Mapa atual, long id, String codigo) {
+        if (tamanho == atual.ids.length) {
+            int capacidade = Math.max(64, atual.ids.length * 2);
+            AtomicLongArray livres = new AtomicLongArray(palavras(capacidade));
+            for (int i = 0; i < atual.livres.length(); i++) {
+                livres.set(i, atual.livres.get(i));
+            }
+            atual = new Mapa(Arrays.copyOf(atual.ids, capacidade), Arrays.copyOf(atual.codigos, capacidade),
+                    livres, atual.indices);
+            this.mapa = atual;
+        }
+        atual.ids[tamanho] = id;
+        atual.codigos[tamanho] = codigo;
+        atual.indices.put(id, tamanho);
+        tamanho++;
+        return atual;
+    }
+
+    private static int palavras(int vagas) {
+        return (vagas + 63) >>> 6;
+    }
+
+    private record Mapa(long[] ids, String[] codigos, AtomicLongArray livres, Map<Long, Integer> indices) {
+    }
+}
@@ -4,23 +4,69 @@ import com.balabenute.demo_park_api.entity.Vaga;
 import com.balabenute.demo_park_api.exception.CodigoUniqueViolationException;
 import com.balabenute.demo_park_api.exception.EntityNotFoundException;
 import com.balabenute.demo_park_api.repository.VagaRepository;
+import com.balabenute.demo_park_api.utils.TransacaoUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.balabenute.demo_park_api.entity.Vaga.StatusVaga.LIVRE;
+import static com.balabenute.demo_park_api.entity.Vaga.StatusVaga.OCUPADA;
 
 @RequiredArgsConstructor
 @Service
 public class VagaService {
 
     private final VagaRepository vagaRepository;
+    private final VagaAlocador vagaAlocador;
+    private final ContadorDeOcupacao contadorDeOcupacao;
+    private final EventosDeVagas eventosDeVagas;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void carregarMapaDeVagas() {
+        ContadorDeOcupacao.Marca marca = contadorDeOcupacao.marcar();
+        List<Vaga> vagas = vagaRepository.findAll();
+        vagaAlocador.recarregar(vagas);
+        contadorDeOcupacao.reconciliar(marca, vagas.size(),
+                vagas.stream().filter(vaga -> vaga.getStatus() == OCUPADA).count());
+    }
+
+    @Scheduled(fixedDelayString = "${estacionamento.ocupacao.reconciliacao-ms:60000}",
+            initialDelayString = "${estacionamento.ocupacao.reconciliacao-ms:60000}")
+    @Transactional(readOnly = true)
+    // Refaz também o mapa de vagas livres, que perde vagas liberadas por outra instância ou fora da API.
+    public void reconciliarOcupacao() {
+        carregarMapaDeVagas();
+    }
+
+    public ContadorDeOcupacao.Ocupacao consultarOcupacao() {
+        return contadorDeOcupacao.consultar();
+    }
+
+    // Começa pela ocupação atual e segue com os eventos publicados depois da inscrição.
+    public Flux<EventosDeVagas.Evento> assinarEventos() {
+        return eventosDeVagas.assinar(() -> new EventosDeVagas.OcupacaoAlterada(contadorDeOcupacao.consultar()));
+    }
 
     @Transactional
     public Vaga salvar(Vaga vaga) {
         try {
-            return vagaRepository.save(vaga);
+            Vaga salva = vagaRepository.save(vaga);
+            TransacaoUtils.aposCommit(() -> {
+                vagaAlocador.registrar(salva.getId(), salva.getCodigo(), salva.getStatus() == LIVRE);
+                contadorDeOcupacao.registrarVagas(1);
+            });
+            return salva;
         } catch (DataIntegrityViolationException ex) {
             throw new CodigoUniqueViolationException(String.format("Vaga com código '%s' já cadastrada", vaga.getCodigo()));
         }
@@ -33,10 +79,95 @@ public class VagaService {
         );
     }
 
-    @Transactional(readOnly = true)
-    public Vaga buscarPorVagaLivre() {
-        return vagaRepository.findFirstByStatus(LIVRE).orElseThrow(
-                () -> new EntityNotFoundException("Nnehuma vaga livre foi encontrada")
-        );
+    @Transactional
+    public Vaga ocuparVagaLivre() {
+        VagaAlocador.VagaAlocada alocada;
+        while ((alocada = vagaAlocador.alocar()) != null) {
+            if (ocupar(alocada.id(), alocada.codigo())) {
+                return toVagaOcupada(alocada.id(), alocada.codigo());
+            }
+        }
+        // O mapa não tem vagas livres, mas pode estar desatualizado em relação ao banco
+        // (vagas incluídas fora da API ou liberadas por outra instância).
+        // Bancos sem SKIP LOCKED (ex.: H2) bloqueiam na mesma linha; o UPDATE condicional
+        // detecta a vaga ocupada nesse meio tempo e a busca é refeita.
+        while (true) {
+            Vaga livre = vagaRepository.findAllByStatus(LIVRE, Limit.of(1)).stream().findFirst().orElseThrow(
+                    () -> new EntityNotFoundException("Nnehuma vaga livre foi encontrada")
+            );
+            vagaAlocador.registrar(livre.getId(), livre.getCodigo(), false);
+            if (ocupar(livre.getId(), livre.getCodigo())) {
+                return toVagaOcupada(livre.getId(), livre.getCodigo());
+            }
+        }
+    }
+
+    @Transactional
+    public List<Vaga> ocuparVagasLivres(int quantidade) {
+        List<Vaga> ocupadas = new ArrayList<>(quantidade);
+        List<VagaAlocador.VagaAlocada> candidatas = new ArrayList<>(quantidade);
+        VagaAlocador.VagaAlocada alocada;
+        while (candidatas.size() < quantidade && (alocada = vagaAlocador.alocar()) != null) {
+            candidatas.add(alocada);
+        }
+        ocuparEmLote(candidatas, ocupadas);
+
+        // Completa o lote com vagas livres que o mapa não conhece, travadas com SKIP LOCKED.
+        while (ocupadas.size() < quantidade) {
+            List<Vaga> livres = vagaRepository.findAllByStatus(LIVRE, Limit.of(quantidade - ocupadas.size()));
+            if (livres.isEmpty()) {
+                break;
+            }
+            candidatas = new ArrayList<>(livres.size());
+            for (Vaga livre : livres) {
+                vagaAlocador.registrar(livre.getId(), livre.getCodigo(), false);
+                candidatas.add(new VagaAlocador.VagaAlocada(livre.getId(), livre.getCodigo()));
+            }
+            ocuparEmLote(candidatas, ocupadas);
+        }
+        return ocupadas;
+    }
+
+    @Transactional
+    public void liberarVagas(List<Vaga> vagas) {
+        if (vagas.isEmpty()) {
+            return;
+        }
+        vagaRepository.liberarEmLote(vagas.stream().map(Vaga::getId).toList(), LocalDateTime.now());
+        for (Vaga vaga : vagas) {
+            vaga.setStatus(LIVRE);
+            TransacaoUtils.aposCommit(() -> vagaAlocador.liberar(vaga.getId(), vaga.getCodigo()));
+        }
+    }
+
+    private boolean ocupar(long id, String codigo) {
+        if (vagaRepository.atualizarStatus(id, LIVRE, OCUPADA, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        TransacaoUtils.aposRollback(() -> vagaAlocador.liberar(id, codigo));
+        return true;
+    }
+
+    private void ocuparEmLote(List<VagaAlocador.VagaAlocada> candidatas, List<Vaga> ocupadas) {
+        if (candidatas.isEmpty()) {
+            return;
+        }
+        List<Long> ids = candidatas.stream().map(VagaAlocador.VagaAlocada::id).toList();
+        boolean[] resultado = vagaRepository.ocuparEmLote(ids, LocalDateTime.now());
+        for (int i = 0; i < resultado.length; i++) {
+            if (resultado[i]) {
+                VagaAlocador.VagaAlocada vaga = candidatas.get(i);
+                TransacaoUtils.aposRollback(() -> vagaAlocador.liberar(vaga.id(), vaga.codigo()));
+                ocupadas.add(toVagaOcupada(vaga.id(), vaga.codigo()));
+            }
+        }
+    }
+
+    private Vaga toVagaOcupada(long id, String codigo) {
+        Vaga vaga = new Vaga();
+        vaga.setId(id);
+        vaga.setCodigo(codigo);
+        vaga.setStatus(OCUPADA);
+        return vaga;
     }
 }
@@ -0,0 +1,46 @@
+package com.balabenute.demo_park_api.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ArquivoUtils {
+
+    // Cria o diretório se preciso e apaga só os arquivos dele que casam com o glob, sem descer em
+    // subdiretórios: o diretório configurado pode ter outros arquivos que não são da aplicação.
+    public static void prepararDiretorio(Path diretorio, String glob) throws IOException {
+        Files.createDirectories(diretorio);
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, glob)) {
+            for (Path arquivo : arquivos) {
+                if (Files.isRegularFile(arquivo)) {
+                    Files.deleteIfExists(arquivo);
+                }
+            }
+        }
+    }
+
+    // Escreve em destino.tmp e renomeia ao final, então um arquivo incompleto nunca aparece com o nome
+    // do destino; o temporário é apagado se a escrita falhar. Devolve o tamanho gravado em bytes.
+    public static long gravar(Path destino, Consumer<OutputStream> escritor) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try {
+            try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(temporario))) {
+                escritor.accept(saida);
+            }
+            long tamanho = Files.size(temporario);
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+            return tamanho;
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.balabenute.demo_park_api.utils;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache em memória thread-safe com validade por entrada, limitado a {@code tamanhoMaximo} entradas.
+ * <p>
+ * A limpeza acontece a cada gravação, sem thread própria: saem as entradas expiradas e, acima do
+ * tamanho máximo, as que expiram primeiro. Uma entrada expirada que ainda não saiu nunca é
+ * devolvida. As durações são em nanossegundos, medidos com {@link System#nanoTime()}.
+ * <p>
+ * Uma invalidação nunca é desfeita: um valor carregado antes dela e gravado depois sai do cache.
+ */
+public class CacheComExpiracao<K, V> {
+
+    private record Entrada<V>(V valor, long expiraEm) {
+    }
+
+    private record Inclusao<K, V>(K chave, Entrada<V> entrada) {
+    }
+
+    private final Map<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+    // Ordenadas pela expiração de cada entrada, que pode ser diferente entre as entradas.
+    private final Queue<Inclusao<K, V>> inclusoes =
+            new PriorityBlockingQueue<>(64, Comparator.comparingLong(inclusao -> inclusao.entrada().expiraEm()));
+    private final int tamanhoMaximo;
+    // Contador de invalidações; um carregamento que atravessa uma invalidação não fica no cache.
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public CacheComExpiracao(int tamanhoMaximo) {
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    public V obter(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        return entrada != null && entrada.expiraEm() - System.nanoTime() > 0 ? entrada.valor() : null;
+    }
+
+    /**
+     * Devolve o valor válido da chave ou o carrega com {@code carregar}. O valor carregado fica no
+     * cache por {@code duracao} nanossegundos; valores nulos ou com duração não positiva não são
+     * guardados.
+     */
+    public V obter(K chave, Function<? super K, ? extends V> carregar, ToLongFunction<? super V> duracao) {
+        long agora = System.nanoTime();
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada != null && entrada.expiraEm() - agora > 0) {
+            return entrada.valor();
+        }
+
+        long versao = invalidacoes.get();
+        V valor = carregar.apply(chave);
+        long nanos = valor != null ? duracao.applyAsLong(valor) : 0;
+        if (nanos > 0) {
+            Entrada<V> nova = new Entrada<>(valor, agora + nanos);
+            boolean gravada = entrada == null
+                    ? entradas.putIfAbsent(chave, nova) == null
+                    : entradas.replace(chave, entrada, nova);
+            if (gravada) {
+                // O valor pode ter sido lido antes de uma invalidação que já terminou; como invalidar
+                // incrementa o contador antes de remover, basta conferi-lo depois da gravação.
+                if (invalidacoes.get() != versao) {
+                    entradas.remove(chave, nova);
+                } else {
+                    incluir(chave, nova, agora);
+                }
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Grava {@code valor} por {@code duracao} nanossegundos se a chave não tiver um valor válido.
+     * Devolve o valor válido já existente, ou {@code null} quando gravou.
+     */
+    public V gravarSeAusente(K chave, V valor, long duracao) {
+        long agora = System.nanoTime();
+        Entrada<V> nova = new Entrada<>(valor, agora + duracao);
+        Entrada<V> existente;
+        while ((existente = entradas.putIfAbsent(chave, nova)) != null) {
+            if (existente.expiraEm() - agora > 0) {
+                return existente.valor();
+            }
+            entradas.remove(chave, existente);
+        }
+        incluir(chave, nova, agora);
+        return null;
+    }
+
+    // Remove a chave só se ela ainda guardar este valor.
+    public void remover(K chave, V valor) {
+        entradas.computeIfPresent(chave, (k, entrada) -> entrada.valor() == valor ? null : entrada);
+    }
+
+    public void invalidar(K chave) {
+        invalidacoes.incrementAndGet();
+        entradas.remove(chave);
+    }
+
+    private void incluir(K chave, Entrada<V> entrada, long agora) {
+        inclusoes.add(new Inclusao<>(chave, entrada));
+        Inclusao<K, V> inclusao;
+        while ((inclusao = inclusoes.peek()) != null
+                && (inclusao.entrada().expiraEm() - agora <= 0 || entradas.size() > tamanhoMaximo)) {
+            if (inclusoes.remove(inclusao)) {
+                entradas.remove(inclusao.chave(), inclusao.entrada());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.balabenute.demo_park_api.utils;
+
+import com.balabenute.demo_park_api.exception.CursorInvalidoException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação por chave: a data de entrada e o id do último registro da página,
+ * em base64 url-safe. O cliente apenas devolve o valor recebido em {@code nextCursor}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CursorUtils {
+
+    public record Posicao(LocalDateTime dataEntrada, long id) {
+    }
+
+    private static final char SEPARADOR = '|';
+
+    public static String codificar(LocalDateTime dataEntrada, long id) {
+        String valor = dataEntrada.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor vazio representa a primeira página.
+    public static Posicao decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            return new Posicao(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+            throw new CursorInvalidoException(String.format("Cursor '%s' inválido", cursor));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.balabenute.demo_park_api.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de strings, thread-safe e sem locks: {@link #talvezContenha(String)} nunca dá
+ * falso negativo e dá falso positivo com a probabilidade informada enquanto o número de valores
+ * não passar da capacidade. Valores não podem ser removidos; para isso o filtro é recriado.
+ */
+public class FiltroDeBloom {
+
+    private final AtomicLongArray bits;
+    private final long totalDeBits;
+    private final int funcoes;
+
+    public FiltroDeBloom(int capacidade, double probabilidadeFalsoPositivo) {
+        int n = Math.max(capacidade, 1);
+        long m = (long) Math.ceil(-n * Math.log(probabilidadeFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.totalDeBits = Math.max(64, m);
+        this.bits = new AtomicLongArray((int) ((totalDeBits + 63) >>> 6));
+        this.funcoes = Math.max(1, (int) Math.round((double) totalDeBits / n * Math.log(2)));
+    }
+
+    public void adicionar(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcoes; i++) {
+            long indice = indice(h1 + i * h2);
+            bits.getAndAccumulate((int) (indice >>> 6), 1L << indice, (atual, bit) -> atual | bit);
+        }
+    }
+
+    public boolean talvezContenha(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcoes; i++) {
+            long indice = indice(h1 + i * h2);
+            if ((bits.get((int) (indice >>> 6)) & (1L << indice)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher): as k posições derivam de dois hashes de 32 bits.
+    private long indice(int combinado) {
+        return (combinado & 0x7fffffffL) % totalDeBits;
+    }
+
+    // FNV-1a de 64 bits seguido do finalizador do MurmurHash3 para espalhar os bits.
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
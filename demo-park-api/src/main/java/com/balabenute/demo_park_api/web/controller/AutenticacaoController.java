@@ -2,13 +2,22 @@ package com.balabenute.demo_park_api.web.controller;
 
 import com.balabenute.demo_park_api.jwt.JwtToken;
 import com.balabenute.demo_park_api.jwt.JwtUserDetailsService;
+import com.balabenute.demo_park_api.jwt.JwtUtils;
+import com.balabenute.demo_park_api.service.ProcessadorDeSenhas;
+import com.balabenute.demo_park_api.service.RefreshTokenService;
+import com.balabenute.demo_park_api.service.RevogacaoDeTokensService;
+import com.balabenute.demo_park_api.web.dto.RefreshTokenDto;
+import com.balabenute.demo_park_api.web.dto.SenhaMetricasResponseDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioLoginDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioResponseDto;
+import com.balabenute.demo_park_api.web.dto.mapper.SenhaMapper;
 import com.balabenute.demo_park_api.web.exception.ErrorMessage;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -16,11 +25,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -33,6 +45,9 @@ public class AutenticacaoController {
 
     private final JwtUserDetailsService detailsService;
     private final AuthenticationManager authenticationManager;
+    private final ProcessadorDeSenhas processadorDeSenhas;
+    private final RefreshTokenService refreshTokenService;
+    private final RevogacaoDeTokensService revogacaoDeTokensService;
 
     @Operation(summary = "Autenticar na API.", description = "Recurso de autenticação na API.",
             responses = {
@@ -41,11 +56,15 @@ public class AutenticacaoController {
                     @ApiResponse(responseCode = "400", description = "Credenciais inválidas.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))),
                     @ApiResponse(responseCode = "422", description = "Campo(s) Inválido(s).",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "503", description = "Muitas autenticações em andamento; tentar novamente.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
             })
     @PostMapping("/auth")
     public ResponseEntity<?> autenticar(@RequestBody @Valid UsuarioLoginDto dto, HttpServletRequest request) {
         log.info("Processo de autenticação pelo login {}", dto.getUsername());
+        // Usuário e refresh token são lidos e gravados nesta thread; só o matches do BCrypt passa pelo
+        // pool de senhas (o PasswordEncoder), que recusa com 503 quando está cheio.
         try {
             UsernamePasswordAuthenticationToken authenticationToken =
                     new UsernamePasswordAuthenticationToken(dto.getUsername(), dto.getPassword());
@@ -62,4 +81,57 @@ public class AutenticacaoController {
                 .badRequest()
                 .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, "Credenciais Inválidas."));
     }
+
+    @Operation(summary = "Renovar o token de acesso.",
+            description = "Troca um refresh token válido por um novo bearer token e um novo refresh token, sem " +
+                    "verificar a senha. O refresh token usado é revogado; reutilizá-lo revoga todos os tokens " +
+                    "emitidos a partir do mesmo login.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tokens renovados com sucesso.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = JwtToken.class))),
+                    @ApiResponse(responseCode = "400", description = "Refresh token inválido, expirado ou revogado.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "422", description = "Campo(s) Inválido(s).",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PostMapping("/auth/refresh")
+    public ResponseEntity<JwtToken> renovar(@RequestBody @Valid RefreshTokenDto dto) {
+        return ResponseEntity.ok(detailsService.getTokenRenovado(dto.getRefreshToken()));
+    }
+
+    @Operation(summary = "Encerrar a sessão.",
+            description = "Revoga o refresh token informado e todos os emitidos a partir do mesmo login. Se a " +
+                    "requisição tiver um Bearer Token válido, ele também deixa de ser aceito.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Tokens revogados."),
+                    @ApiResponse(responseCode = "422", description = "Campo(s) Inválido(s).",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PostMapping("/auth/logout")
+    public ResponseEntity<Void> logout(@RequestBody @Valid RefreshTokenDto dto,
+                                       @RequestHeader(name = JwtUtils.JWT_AUTHORIZATION, required = false) String bearer) {
+        refreshTokenService.revogar(dto.getRefreshToken());
+        Claims claims = bearer != null && bearer.startsWith(JwtUtils.JWT_BEARER) ? JwtUtils.getClaimsFromToken(bearer) : null;
+        if (claims != null) {
+            revogacaoDeTokensService.revogarToken(claims);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Consultar métricas do processamento de senhas",
+            description = "Total de operações de BCrypt, recusas por fila cheia, latência média e máxima, " +
+                    "tamanho atual da fila e threads ativas. Acesso restrito a Role='ADMIN'.",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Métricas retornadas com sucesso",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = SenhaMetricasResponseDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/auth/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SenhaMetricasResponseDto> getMetricas() {
+        return ResponseEntity.ok(SenhaMapper.toDto(processadorDeSenhas.consultarMetricas()));
+    }
 }
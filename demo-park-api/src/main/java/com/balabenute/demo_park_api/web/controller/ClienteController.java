@@ -8,6 +8,7 @@ import com.balabenute.demo_park_api.service.UsuarioService;
 import com.balabenute.demo_park_api.web.dto.ClienteCreateDto;
 import com.balabenute.demo_park_api.web.dto.ClienteResponseDto;
 import com.balabenute.demo_park_api.web.dto.PageableDto;
+import com.balabenute.demo_park_api.web.dto.SliceDto;
 import com.balabenute.demo_park_api.web.dto.mapper.ClienteMapper;
 import com.balabenute.demo_park_api.web.dto.mapper.PageableMapper;
 import com.balabenute.demo_park_api.web.exception.ErrorMessage;
@@ -23,6 +24,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -115,6 +117,40 @@ public class ClienteController {
         return ResponseEntity.ok(PageableMapper.toDto(clientes));
     }
 
+    @Operation(summary = "Recuperar lista de clientes, sem contagem",
+            description = "Com 'contagem=false' a resposta traz apenas 'hasNext' no lugar de 'totalPages' e " +
+                    "'totalElements', evitando a consulta de contagem. Requisição exige uso de um bearer token. " +
+                    "Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = QUERY, name = "contagem", required = true,
+                            content = @Content(schema = @Schema(type = "boolean", allowableValues = "false"))
+                    ),
+                    @Parameter(in = QUERY, name = "page", description = "Representa a página retornada",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "0"))
+                    ),
+                    @Parameter(in = QUERY, name = "size", description = "Representa o total de elementos por página",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "5"))
+                    ),
+                    @Parameter(in = QUERY, name = "sort", hidden = true,
+                            array = @ArraySchema(schema = @Schema(type = "string", defaultValue = "nome,asc"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = SliceDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(params = "contagem=false")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SliceDto> getAllSemContagem(@Parameter(hidden = true) @PageableDefault(size = 5, sort = {"nome"}) Pageable pageable) {
+        Slice<ClienteProjection> clientes = clienteService.buscarTodosSemContagem(pageable);
+        return ResponseEntity.ok(PageableMapper.toDto(clientes));
+    }
+
     @Operation(summary = "Recuperar dados do cliente autenticado",
             description = "Requisição exige uso de um bearer token. Acesso restrito a Role='CLIENTE'",
             security = @SecurityRequirement(name = "security"),
@@ -134,4 +170,22 @@ public class ClienteController {
         Cliente cliente = clienteService.buscarPorUsuarioId(userDetails.getId());
         return ResponseEntity.ok(ClienteMapper.toDto(cliente));
     }
+
+    @Operation(summary = "Recalcular total de estacionamentos dos clientes",
+            description = "Recurso para reconstruir, a partir do histórico de estacionamentos, o contador usado " +
+                    "no desconto de fidelidade. Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Contadores recalculados com sucesso"),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))
+                    )
+            })
+    @PostMapping("/total-estacionamentos/recalcular")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> recalcularTotalEstacionamentos() {
+        clienteService.recalcularTotalEstacionamentos();
+        return ResponseEntity.noContent().build();
+    }
 }
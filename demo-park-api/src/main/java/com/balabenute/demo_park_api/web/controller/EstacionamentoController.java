@@ -1,18 +1,30 @@
 package com.balabenute.demo_park_api.web.controller;
 
 import com.balabenute.demo_park_api.entity.ClienteVaga;
+import com.balabenute.demo_park_api.exception.LoteInvalidoException;
 import com.balabenute.demo_park_api.jwt.JwtUserDetails;
 import com.balabenute.demo_park_api.repository.projection.ClienteVagaProjection;
+import com.balabenute.demo_park_api.service.CacheDeRelatorios;
 import com.balabenute.demo_park_api.service.ClienteService;
 import com.balabenute.demo_park_api.service.ClienteVagaService;
 import com.balabenute.demo_park_api.service.EstacionamentoService;
+import com.balabenute.demo_park_api.service.ExportacaoService;
+import com.balabenute.demo_park_api.service.IdempotenciaService;
+import com.balabenute.demo_park_api.service.PaginaPorCursor;
 import com.balabenute.demo_park_api.service.JasperService;
+import com.balabenute.demo_park_api.service.RelatorioJobService;
+import com.balabenute.demo_park_api.service.ResultadoLote;
 import com.balabenute.demo_park_api.web.dto.ClienteCreateDto;
+import com.balabenute.demo_park_api.web.dto.CursorDto;
 import com.balabenute.demo_park_api.web.dto.EstacionamentoCreateDto;
+import com.balabenute.demo_park_api.web.dto.EstacionamentoLoteResponseDto;
 import com.balabenute.demo_park_api.web.dto.EstacionamentoResponseDto;
 import com.balabenute.demo_park_api.web.dto.PageableDto;
+import com.balabenute.demo_park_api.web.dto.RelatorioJobResponseDto;
+import com.balabenute.demo_park_api.web.dto.SliceDto;
 import com.balabenute.demo_park_api.web.dto.mapper.ClienteVagaMapper;
 import com.balabenute.demo_park_api.web.dto.mapper.PageableMapper;
+import com.balabenute.demo_park_api.web.dto.mapper.RelatorioMapper;
 import com.balabenute.demo_park_api.web.exception.ErrorMessage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,24 +35,35 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.io.IOException;
 import java.net.URI;
+import java.time.LocalDate;
+import java.util.*;
 
+import static io.swagger.v3.oas.annotations.enums.ParameterIn.HEADER;
 import static io.swagger.v3.oas.annotations.enums.ParameterIn.PATH;
 import static io.swagger.v3.oas.annotations.enums.ParameterIn.QUERY;
 
@@ -50,14 +73,67 @@ import static io.swagger.v3.oas.annotations.enums.ParameterIn.QUERY;
 @RequestMapping("api/v1/estacionamentos")
 public class EstacionamentoController {
 
+    private static final int TAMANHO_MAXIMO_LOTE = 100;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // Mesmo limite padrão do Spring Data para o tamanho de página.
+    private static final int TAMANHO_MAXIMO_PAGINA = 2000;
+
     private final EstacionamentoService estacionamentoService;
     private final ClienteVagaService clienteVagaService;
     private final ClienteService clienteService;
     private final JasperService jasperService;
+    private final RelatorioJobService relatorioJobService;
+    private final CacheDeRelatorios cacheDeRelatorios;
+    private final IdempotenciaService idempotenciaService;
+    private final ExportacaoService exportacaoService;
+    private final Validator validator;
+
+    @Operation(summary = "Localizar os registros de estacionamentos do cliente logado, paginados por cursor",
+            description = "Paginação por chave (data de entrada, id), com o mesmo custo em qualquer página. " +
+                    "Informe 'cursor' vazio para a primeira página e o 'nextCursor' recebido para as seguintes; " +
+                    "'nextCursor' ausente indica a última página. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = QUERY, name = "cursor", description = "Cursor opaco da página; vazio na primeira",
+                            required = true, allowEmptyValue = true
+                    ),
+                    @Parameter(in = QUERY, name = "size", description = "Representa o total de elementos por página",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "5"))
+                    ),
+                    @Parameter(in = QUERY, name = "contagem", description = "Inclui 'totalElements', com uma consulta extra",
+                            content = @Content(schema = @Schema(type = "boolean", defaultValue = "false"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = CursorDto.class))),
+                    @ApiResponse(responseCode = "422", description = "Cursor inválido",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de ADMIN",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<CursorDto> getAllEstacionamentosDoClienteComCursor(@AuthenticationPrincipal JwtUserDetails user,
+                                                                             @RequestParam String cursor,
+                                                                             @RequestParam(defaultValue = "5") int size,
+                                                                             @RequestParam(defaultValue = "false") boolean contagem) {
+        PaginaPorCursor<ClienteVagaProjection> pagina =
+                clienteVagaService.buscarHistoricoPorUsuarioId(user.getId(), cursor, tamanhoDaPagina(size), contagem);
+        return ResponseEntity.ok(PageableMapper.toDto(pagina));
+    }
 
     @Operation(summary = "Operação de check-in", description = "Recurso para dar entrada de um veículo no estacionamento. " +
             "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
             security = @SecurityRequirement(name = "security"),
+            parameters = {@Parameter(in = HEADER, name = IDEMPOTENCY_KEY, description = "Chave opcional (até " +
+                    IdempotenciaService.TAMANHO_MAXIMO_CHAVE + " caracteres). Repetir a requisição com a mesma chave " +
+                    "devolve o check-in original em vez de ocupar outra vaga; a mesma chave com outros dados " +
+                    "é recusada com 422")
+            },
             responses = {
                     @ApiResponse(responseCode = "201", description = "Recurso criado com sucesso",
                             headers = @Header(name = HttpHeaders.LOCATION, description = "URL de acesso ao recurso criado"),
@@ -77,9 +153,11 @@ public class EstacionamentoController {
             })
     @PostMapping("/check-in")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<EstacionamentoResponseDto> checkin(@RequestBody @Valid EstacionamentoCreateDto dto) {
-        ClienteVaga clienteVaga = ClienteVagaMapper.toClienteVaga(dto);
-        estacionamentoService.checkIn(clienteVaga);
+    public ResponseEntity<EstacionamentoResponseDto> checkin(@RequestBody @Valid EstacionamentoCreateDto dto,
+                                                             @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String chave) {
+        ClienteVaga clienteVaga = idempotenciaService.executar("check-in", chave, dto,
+                () -> estacionamentoService.checkIn(ClienteVagaMapper.toClienteVaga(dto)),
+                ClienteVaga::getRecibo, clienteVagaService::buscarPorReciboEmQualquerSituacao);
         EstacionamentoResponseDto responseDto = ClienteVagaMapper.toDto(clienteVaga);
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest().path("/{recibo}")
@@ -88,6 +166,55 @@ public class EstacionamentoController {
         return ResponseEntity.created(location).body(responseDto);
     }
 
+    @Operation(summary = "Operação de check-in em lote", description = "Recurso para dar entrada de vários veículos " +
+            "no estacionamento em uma única requisição (máximo de " + TAMANHO_MAXIMO_LOTE + " itens). " +
+            "O resultado de cada item é informado separadamente, na mesma ordem do envio. " +
+            "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Lote processado. Itens com status 201 foram criados; " +
+                            "itens com status 400, 404 ou 422 não foram processados",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    array = @ArraySchema(schema = @Schema(implementation = EstacionamentoLoteResponseDto.class)))),
+                    @ApiResponse(responseCode = "422", description = "Lote vazio ou acima do tamanho máximo",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PostMapping("/check-in/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EstacionamentoLoteResponseDto>> checkinEmLote(@RequestBody List<EstacionamentoCreateDto> dtos) {
+        validarTamanhoDoLote(dtos);
+        EstacionamentoLoteResponseDto[] respostas = new EstacionamentoLoteResponseDto[dtos.size()];
+        List<Integer> indices = new ArrayList<>();
+        List<ClienteVaga> estacionamentos = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (dtos.get(i) == null) {
+                respostas[i] = new EstacionamentoLoteResponseDto(i, HttpStatus.BAD_REQUEST.value(),
+                        "Item do lote não informado", null, null);
+                continue;
+            }
+            Set<ConstraintViolation<EstacionamentoCreateDto>> violacoes = validator.validate(dtos.get(i));
+            if (violacoes.isEmpty()) {
+                indices.add(i);
+                estacionamentos.add(ClienteVagaMapper.toClienteVaga(dtos.get(i)));
+            } else {
+                Map<String, String> errors = new HashMap<>();
+                violacoes.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+                respostas[i] = new EstacionamentoLoteResponseDto(i, HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        "Campo(s) invalido(s)", errors, null);
+            }
+        }
+
+        List<ResultadoLote<ClienteVaga>> resultados = estacionamentoService.checkInEmLote(estacionamentos);
+        for (int i = 0; i < resultados.size(); i++) {
+            respostas[indices.get(i)] = toLoteDto(indices.get(i), resultados.get(i), HttpStatus.CREATED);
+        }
+        return ResponseEntity.ok(Arrays.asList(respostas));
+    }
+
     @Operation(summary = "Localizar um veículo estacionado", description = "Recurso para retornar um veículo estacionado " +
             "pelo nº do recibo. Requisição exige uso de um bearer token.",
             security = @SecurityRequirement(name = "security"),
@@ -114,7 +241,10 @@ public class EstacionamentoController {
             "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
             security = @SecurityRequirement(name = "security"),
             parameters = {@Parameter(in = PATH, name = "recibo", description = "Número do rebibo gerado pelo check-in",
-                    required = true)
+                    required = true),
+                    @Parameter(in = HEADER, name = IDEMPOTENCY_KEY, description = "Chave opcional (até " +
+                            IdempotenciaService.TAMANHO_MAXIMO_CHAVE + " caracteres). Repetir a requisição com a mesma " +
+                            "chave devolve o check-out original em vez de 404")
             },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Recurso atualzado com sucesso",
@@ -130,12 +260,57 @@ public class EstacionamentoController {
             })
     @PutMapping("/check-out/{recibo}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<EstacionamentoResponseDto> checkout(@PathVariable String recibo) {
-        ClienteVaga clienteVaga = estacionamentoService.checkOut(recibo);
+    public ResponseEntity<EstacionamentoResponseDto> checkout(@PathVariable String recibo,
+                                                              @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String chave) {
+        ClienteVaga clienteVaga = idempotenciaService.executar("check-out:" + recibo, chave, null,
+                () -> estacionamentoService.checkOut(recibo),
+                ClienteVaga::getRecibo, clienteVagaService::buscarPorReciboEmQualquerSituacao);
         EstacionamentoResponseDto dto = ClienteVagaMapper.toDto(clienteVaga);
         return ResponseEntity.ok(dto);
     }
 
+    @Operation(summary = "Operação de check-out em lote", description = "Recurso para dar saída de vários veículos " +
+            "do estacionamento em uma única requisição (máximo de " + TAMANHO_MAXIMO_LOTE + " recibos). " +
+            "O resultado de cada recibo é informado separadamente, na mesma ordem do envio. " +
+            "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Lote processado. Itens com status 200 foram atualizados; " +
+                            "itens com status 400 não informaram o recibo e itens com status 404 têm recibo inexistente " +
+                            "ou já passaram pelo check-out",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    array = @ArraySchema(schema = @Schema(implementation = EstacionamentoLoteResponseDto.class)))),
+                    @ApiResponse(responseCode = "422", description = "Lote vazio ou acima do tamanho máximo",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PutMapping("/check-out/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EstacionamentoLoteResponseDto>> checkoutEmLote(@RequestBody List<String> recibos) {
+        validarTamanhoDoLote(recibos);
+        EstacionamentoLoteResponseDto[] respostas = new EstacionamentoLoteResponseDto[recibos.size()];
+        List<Integer> indices = new ArrayList<>();
+        List<String> validos = new ArrayList<>();
+        for (int i = 0; i < recibos.size(); i++) {
+            if (recibos.get(i) == null || recibos.get(i).isBlank()) {
+                respostas[i] = new EstacionamentoLoteResponseDto(i, HttpStatus.BAD_REQUEST.value(),
+                        "Recibo do lote não informado", null, null);
+            } else {
+                indices.add(i);
+                validos.add(recibos.get(i));
+            }
+        }
+
+        List<ResultadoLote<ClienteVaga>> resultados = estacionamentoService.checkOutEmLote(validos);
+        for (int i = 0; i < resultados.size(); i++) {
+            respostas[indices.get(i)] = toLoteDto(indices.get(i), resultados.get(i), HttpStatus.OK);
+        }
+        return ResponseEntity.ok(Arrays.asList(respostas));
+    }
+
     @Operation(summary = "Localizar os registros de estacionamentos do cliente por CPF", description = "Localizar os " +
             "registros de estacionamentos do cliente por CPF. Requisição exige uso de um bearer token.",
             security = @SecurityRequirement(name = "security"),
@@ -173,6 +348,85 @@ public class EstacionamentoController {
         return ResponseEntity.ok(dto);
     }
 
+    @Operation(summary = "Localizar os registros de estacionamentos do cliente por CPF, sem contagem",
+            description = "Com 'contagem=false' a resposta traz apenas 'hasNext' no lugar de 'totalPages' e " +
+                    "'totalElements', evitando a consulta de contagem. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "cpf", description = "Nº do CPF referente ao cliente a ser consultado",
+                            required = true
+                    ),
+                    @Parameter(in = QUERY, name = "contagem", required = true,
+                            content = @Content(schema = @Schema(type = "boolean", allowableValues = "false"))
+                    ),
+                    @Parameter(in = QUERY, name = "page", description = "Representa a página retornada",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "0"))
+                    ),
+                    @Parameter(in = QUERY, name = "size", description = "Representa o total de elementos por página",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "5"))
+                    ),
+                    @Parameter(in = QUERY, name = "sort", hidden = true,
+                            array = @ArraySchema(schema = @Schema(type = "string", defaultValue = "dataEntrada,asc"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = SliceDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(value = "/cpf/{cpf}", params = {"contagem=false", "!cursor"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SliceDto> getAllEstacionamentosPorCpfSemContagem(@PathVariable String cpf,
+                                                                           @PageableDefault(size = 5, sort = "dataEntrada",
+                                                                                   direction = Sort.Direction.ASC) Pageable pageable) {
+        Slice<ClienteVagaProjection> projection = clienteVagaService.buscarTodosPorClienteCpfSemContagem(cpf, pageable);
+        return ResponseEntity.ok(PageableMapper.toDto(projection));
+    }
+
+    @Operation(summary = "Localizar os registros de estacionamentos por cpf do cliente, paginados por cursor",
+            description = "Paginação por chave (data de entrada, id), com o mesmo custo em qualquer página. " +
+                    "Informe 'cursor' vazio para a primeira página e o 'nextCursor' recebido para as seguintes; " +
+                    "'nextCursor' ausente indica a última página. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "cpf", description = "Nº do CPF referente ao cliente a ser consultado",
+                            required = true
+                    ),
+                    @Parameter(in = QUERY, name = "cursor", description = "Cursor opaco da página; vazio na primeira",
+                            required = true, allowEmptyValue = true
+                    ),
+                    @Parameter(in = QUERY, name = "size", description = "Representa o total de elementos por página",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "5"))
+                    ),
+                    @Parameter(in = QUERY, name = "contagem", description = "Inclui 'totalElements', com uma consulta extra",
+                            content = @Content(schema = @Schema(type = "boolean", defaultValue = "false"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = CursorDto.class))),
+                    @ApiResponse(responseCode = "422", description = "Cursor inválido",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(value = "/cpf/{cpf}", params = "cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorDto> getAllEstacionamentosPorCpfComCursor(@PathVariable String cpf,
+                                                                          @RequestParam String cursor,
+                                                                          @RequestParam(defaultValue = "5") int size,
+                                                                          @RequestParam(defaultValue = "false") boolean contagem) {
+        PaginaPorCursor<ClienteVagaProjection> pagina =
+                clienteVagaService.buscarHistoricoPorClienteCpf(cpf, cursor, tamanhoDaPagina(size), contagem);
+        return ResponseEntity.ok(PageableMapper.toDto(pagina));
+    }
+
     @Operation(summary = "Localizar os registros de estacionamentos do cliente logado",
             description = "Localizar os registros de estacionamentos do cliente logado. " +
                     "Requisição exige uso de um bearer token.",
@@ -209,30 +463,226 @@ public class EstacionamentoController {
         return ResponseEntity.ok(dto);
     }
 
+    @Operation(summary = "Localizar os registros de estacionamentos do cliente logado, sem contagem",
+            description = "Com 'contagem=false' a resposta traz apenas 'hasNext' no lugar de 'totalPages' e " +
+                    "'totalElements', evitando a consulta de contagem. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = QUERY, name = "contagem", required = true,
+                            content = @Content(schema = @Schema(type = "boolean", allowableValues = "false"))
+                    ),
+                    @Parameter(in = QUERY, name = "page", description = "Representa a página retornada",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "0"))
+                    ),
+                    @Parameter(in = QUERY, name = "size", description = "Representa o total de elementos por página",
+                            content = @Content(schema = @Schema(type = "integer", defaultValue = "5"))
+                    ),
+                    @Parameter(in = QUERY, name = "sort", hidden = true,
+                            array = @ArraySchema(schema = @Schema(type = "string", defaultValue = "dataEntrada,asc"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = SliceDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de ADMIN",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(params = {"contagem=false", "!cursor"})
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<SliceDto> getAllEstacionamentosDoClienteSemContagem(@AuthenticationPrincipal JwtUserDetails user,
+                                                                              @PageableDefault(size = 5, sort = "dataEntrada",
+                                                                                      direction = Sort.Direction.ASC) Pageable pageable) {
+        Slice<ClienteVagaProjection> projection = clienteVagaService.buscarTodosPorUsuarioIdSemContagem(user.getId(), pageable);
+        return ResponseEntity.ok(PageableMapper.toDto(projection));
+    }
+
+    @Operation(summary = "Exportar os registros de estacionamentos de um período",
+            description = "Exporta em NDJSON ou CSV os estacionamentos com entrada entre as datas informadas, " +
+                    "opcionalmente de um único cliente. As linhas são enviadas conforme são lidas do banco, " +
+                    "sem limite de quantidade. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = QUERY, name = "inicio", description = "Data inicial (inclusive), no formato yyyy-MM-dd",
+                            required = true
+                    ),
+                    @Parameter(in = QUERY, name = "fim", description = "Data final (inclusive), no formato yyyy-MM-dd",
+                            required = true
+                    ),
+                    @Parameter(in = QUERY, name = "cpf", description = "Nº do CPF para exportar apenas um cliente"),
+                    @Parameter(in = QUERY, name = "formato", description = "NDJSON ou CSV",
+                            content = @Content(schema = @Schema(type = "string", defaultValue = "NDJSON",
+                                    allowableValues = {"NDJSON", "CSV"}))
+                    ),
+                    @Parameter(in = QUERY, name = "gzip", description = "Compacta o arquivo com gzip",
+                            content = @Content(schema = @Schema(type = "boolean", defaultValue = "false"))
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Exportação iniciada com sucesso",
+                            content = {@Content(mediaType = "application/x-ndjson"),
+                                    @Content(mediaType = "text/csv"),
+                                    @Content(mediaType = "application/gzip")}),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/exportacao")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(required = false) String cpf,
+            @RequestParam(defaultValue = "NDJSON") ExportacaoService.Formato formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String arquivo = "estacionamentos-" + inicio + "-" + fim + "." + formato.getExtensao() + (gzip ? ".gz" : "");
+        StreamingResponseBody corpo = saida -> exportacaoService.exportar(formato,
+                inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay(), cpf, gzip, saida);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : formato.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + arquivo)
+                .body(corpo);
+    }
+
     @Operation(summary = "Relatório em PDF com os estacionamentos do cliente",
-            description = "Recurso para gerar um relatório com os estacionamentos do cliente. " +
-                    "Requisição exige uso de um bearer token.",
+            description = "Recurso para gerar um relatório com os estacionamentos do cliente. A resposta traz um ETag; " +
+                    "enviado em If-None-Match, o relatório só é gerado e enviado de novo se os estacionamentos " +
+                    "do cliente mudaram. Requisição exige uso de um bearer token.",
             security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = HEADER, name = "If-None-Match", description = "ETag do relatório já recebido")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Relatório gerado com sucesso",
+                            headers = @Header(name = HttpHeaders.ETAG, description = "Versão do relatório"),
                             content = @Content(mediaType = "application/pdf",
                                     schema = @Schema(implementation = EstacionamentoResponseDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Relatório sem alterações desde o ETag informado"),
                     @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de ADMIN",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "503", description = "Muitos relatórios em geração; tentar novamente.",
                             content = @Content(mediaType = " application/json;charset=UTF-8",
                                     schema = @Schema(implementation = ErrorMessage.class)))
             })
     @GetMapping("/relatorio")
     @PreAuthorize("hasRole('CLIENTE')")
-    public ResponseEntity<Void> getRelatorio(HttpServletResponse response, @AuthenticationPrincipal JwtUserDetails user) throws IOException {
+    public ResponseEntity<Resource> getRelatorio(@AuthenticationPrincipal JwtUserDetails user, WebRequest request) {
+        String cpf = clienteService.buscarPorUsuarioId(user.getId()).getCpf();
+        String chave = cacheDeRelatorios.chave(cpf, clienteVagaService.buscarVersaoDoHistorico(cpf));
+        String etag = "\"" + chave + "\"";
+        if (request.checkNotModified(etag)) {
+            // 304 e ETag já definidos na resposta.
+            return null;
+        }
+
+        // O stream já aberto continua legível mesmo que o arquivo saia do cache antes do envio.
+        Resource pdf = new InputStreamResource(cacheDeRelatorios.obter(chave, cpf, saida -> jasperService.gerarPdf(cpf, saida)));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + System.currentTimeMillis() + ".pdf")
+                .body(pdf);
+    }
+
+    @Operation(summary = "Solicitar o relatório em PDF com os estacionamentos do cliente",
+            description = "O relatório é gerado em segundo plano. A resposta traz o id do job e o header Location " +
+                    "para acompanhar o status; com status CONCLUIDO o PDF pode ser baixado. " +
+                    "Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Relatório aceito para geração",
+                            headers = @Header(name = HttpHeaders.LOCATION, description = "URL do status do relatório"),
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = RelatorioJobResponseDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de ADMIN",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "503", description = "Muitos relatórios na fila; tentar novamente.",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PostMapping("/relatorio/jobs")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<RelatorioJobResponseDto> solicitarRelatorio(@AuthenticationPrincipal JwtUserDetails user) {
         String cpf = clienteService.buscarPorUsuarioId(user.getId()).getCpf();
-        jasperService.addParams("CPF", cpf);
+        RelatorioJobService.RelatorioJob job = relatorioJobService.submeter(user.getId(), cpf);
 
-        byte[] bytes = jasperService.gerarPdf();
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequestUri().path("/{id}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(RelatorioMapper.toDto(job));
+    }
 
-        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
-        response.setHeader("Content-disposition", "inline; filename=" + System.currentTimeMillis() + ".pdf");
-        response.getOutputStream().write(bytes);
+    @Operation(summary = "Consultar o status de um relatório solicitado",
+            description = "Status PENDENTE, PROCESSANDO, CONCLUIDO, ERRO ou EXPIRADO. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "id", description = "Id do relatório", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = RelatorioJobResponseDto.class))),
+                    @ApiResponse(responseCode = "404", description = "Relatório não encontrado",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/relatorio/jobs/{id}")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<RelatorioJobResponseDto> getRelatorioJob(@PathVariable String id,
+                                                                   @AuthenticationPrincipal JwtUserDetails user) {
+        return ResponseEntity.ok(RelatorioMapper.toDto(relatorioJobService.buscarPorId(id, user.getId())));
+    }
+
+    @Operation(summary = "Baixar um relatório concluído",
+            description = "Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "id", description = "Id do relatório", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "PDF do relatório",
+                            content = @Content(mediaType = "application/pdf")),
+                    @ApiResponse(responseCode = "404", description = "Relatório não encontrado ou expirado",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "409", description = "Relatório ainda não concluído",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/relatorio/jobs/{id}/pdf")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<Resource> getRelatorioJobPdf(@PathVariable String id,
+                                                       @AuthenticationPrincipal JwtUserDetails user) {
+        Resource pdf = new InputStreamResource(relatorioJobService.abrirArquivo(id, user.getId()));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + id + ".pdf")
+                .body(pdf);
+    }
+
+    private void validarTamanhoDoLote(List<?> itens) {
+        if (itens.isEmpty() || itens.size() > TAMANHO_MAXIMO_LOTE) {
+            throw new LoteInvalidoException(
+                    String.format("O lote deve conter entre 1 e %d itens", TAMANHO_MAXIMO_LOTE));
+        }
+    }
+
+    private EstacionamentoLoteResponseDto toLoteDto(int indice, ResultadoLote<ClienteVaga> resultado, HttpStatus sucesso) {
+        if (resultado.isSucesso()) {
+            return new EstacionamentoLoteResponseDto(indice, sucesso.value(), null, null,
+                    ClienteVagaMapper.toDto(resultado.getItem()));
+        }
+        return new EstacionamentoLoteResponseDto(indice, HttpStatus.NOT_FOUND.value(),
+                resultado.getErro().getMessage(), null, null);
+    }
 
-        return ResponseEntity.ok().build();
+    private static int tamanhoDaPagina(int size) {
+        return Math.min(Math.max(size, 1), TAMANHO_MAXIMO_PAGINA);
     }
 }
@@ -0,0 +1,145 @@
+package com.balabenute.demo_park_api.web.controller;
+
+import com.balabenute.demo_park_api.service.ExtratoMensalService;
+import com.balabenute.demo_park_api.web.dto.ExtratoProgressoResponseDto;
+import com.balabenute.demo_park_api.web.dto.mapper.RelatorioMapper;
+import com.balabenute.demo_park_api.web.exception.ErrorMessage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+import static io.swagger.v3.oas.annotations.enums.ParameterIn.PATH;
+
+@Tag(name = "Extratos", description = "Geração em lote dos extratos mensais em PDF de todos os clientes.")
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/extratos")
+public class ExtratoController {
+
+    private final ExtratoMensalService extratoMensalService;
+
+    @Operation(summary = "Iniciar a geração dos extratos do mês",
+            description = "Gera em segundo plano o extrato em PDF de cada cliente com os estacionamentos de um mês já encerrado. " +
+                    "Extratos já gerados são mantidos, então iniciar de novo continua uma geração interrompida. " +
+                    "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "mes", description = "Mês no formato yyyy-MM", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Geração iniciada",
+                            headers = @Header(name = HttpHeaders.LOCATION, description = "URL do progresso da geração"),
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ExtratoProgressoResponseDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "409", description = "Já existe uma geração em andamento",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "422", description = "Mês atual ou futuro, ainda não encerrado",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @PostMapping("/{mes}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExtratoProgressoResponseDto> iniciar(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        ExtratoMensalService.Progresso progresso = extratoMensalService.iniciar(mes);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+        return ResponseEntity.accepted().location(location).body(RelatorioMapper.toDto(progresso));
+    }
+
+    @Operation(summary = "Consultar o progresso da geração dos extratos do mês",
+            description = "Totais processados, gerados, já existentes e com falha, taxa de extratos por segundo e " +
+                    "estimativa de término. Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "mes", description = "Mês no formato yyyy-MM", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Progresso da geração",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ExtratoProgressoResponseDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "404", description = "Nenhuma geração do mês encontrada",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/{mes}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExtratoProgressoResponseDto> consultar(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        return ResponseEntity.ok(RelatorioMapper.toDto(extratoMensalService.consultar(mes)));
+    }
+
+    @Operation(summary = "Cancelar a geração dos extratos do mês",
+            description = "A geração para após os extratos em andamento; iniciá-la de novo continua de onde parou. " +
+                    "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "mes", description = "Mês no formato yyyy-MM", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Cancelamento solicitado",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ExtratoProgressoResponseDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "404", description = "Nenhuma geração do mês encontrada",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @DeleteMapping("/{mes}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExtratoProgressoResponseDto> cancelar(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        return ResponseEntity.accepted().body(RelatorioMapper.toDto(extratoMensalService.cancelar(mes)));
+    }
+
+    @Operation(summary = "Baixar os extratos do mês em zip",
+            description = "Zip com os extratos do mês já gerados, enviado à medida que é compactado. " +
+                    "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
+            security = @SecurityRequirement(name = "security"),
+            parameters = {
+                    @Parameter(in = PATH, name = "mes", description = "Mês no formato yyyy-MM", required = true)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Zip com os extratos",
+                            content = @Content(mediaType = "application/zip")),
+                    @ApiResponse(responseCode = "403", description = "Recurso não permito ao perfil de CLIENTE",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class))),
+                    @ApiResponse(responseCode = "404", description = "Nenhum extrato do mês encontrado",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping("/{mes}/zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> baixar(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        Path pasta = extratoMensalService.buscarPasta(mes);
+        StreamingResponseBody corpo = saida -> extratoMensalService.compactar(pasta, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=extratos-" + mes + ".zip")
+                .body(corpo);
+    }
+}
@@ -2,6 +2,7 @@ package com.balabenute.demo_park_api.web.controller;
 
 import com.balabenute.demo_park_api.entity.Vaga;
 import com.balabenute.demo_park_api.service.VagaService;
+import com.balabenute.demo_park_api.web.dto.OcupacaoResponseDto;
 import com.balabenute.demo_park_api.web.dto.VagaCreateDto;
 import com.balabenute.demo_park_api.web.dto.VagaResponseDto;
 import com.balabenute.demo_park_api.web.dto.mapper.VagaMapper;
@@ -14,22 +15,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import reactor.core.publisher.Flux;
+
 import java.net.URI;
+import java.time.Duration;
 
 @Tag(name = "Vagas", description = "Contém todas as opereções relativas ao recurso de uma vaga")
-@RequiredArgsConstructor
 @RestController
 @RequestMapping("api/v1/vagas")
 public class VagaController {
 
     private final VagaService vagaService;
+    private final long heartbeat;
+    private final long timeout;
+
+    public VagaController(VagaService vagaService,
+                          @Value("${estacionamento.eventos.heartbeat-ms:15000}") long heartbeat,
+                          @Value("${estacionamento.eventos.timeout-ms:0}") long timeout) {
+        this.vagaService = vagaService;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+    }
 
     @Operation(summary = "Criar uma nova vaga", description = "Recurso para criar uma nova vaga." +
             "Requisição exige uso de um bearer token. Acesso restrito a Role='ADMIN'",
@@ -81,4 +96,44 @@ public class VagaController {
         Vaga vaga = vagaService.buscarPorCodigo(codigo);
         return ResponseEntity.ok(VagaMapper.toDto(vaga));
     }
+
+    @Operation(summary = "Consultar a ocupação do estacionamento", description = "Recurso para retornar o total de vagas, " +
+            "vagas livres e ocupadas e os check-ins e check-outs do último minuto, a partir de contadores em memória " +
+            "reconciliados periodicamente com o banco. Requisição exige uso de um bearer token, exceto com " +
+            "estacionamento.ocupacao.publica=true.",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurso localizado com sucesso",
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = OcupacaoResponseDto.class)))
+            })
+    @GetMapping("/ocupacao")
+    public ResponseEntity<OcupacaoResponseDto> getOcupacao() {
+        return ResponseEntity.ok(VagaMapper.toDto(vagaService.consultarOcupacao()));
+    }
+
+    @Operation(summary = "Acompanhar vagas e ocupação em tempo real", description = "Stream text/event-stream com os " +
+            "eventos 'vaga' (código e novo status de cada vaga ocupada ou liberada) e 'ocupacao' (contadores após " +
+            "cada check-in/check-out, o primeiro enviado logo na conexão). Assinantes lentos perdem os eventos mais " +
+            "antigos. Requisição exige uso de um bearer token.",
+            security = @SecurityRequirement(name = "security"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream de eventos iniciado",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+                    @ApiResponse(responseCode = "503", description = "Limite de assinantes simultâneos atingido",
+                            headers = @Header(name = HttpHeaders.RETRY_AFTER, description = "Segundos até tentar de novo"),
+                            content = @Content(mediaType = " application/json;charset=UTF-8",
+                                    schema = @Schema(implementation = ErrorMessage.class)))
+            })
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLIENTE')")
+    public Flux<ServerSentEvent<Object>> getEventos() {
+        // Comentários periódicos mantêm a conexão aberta em proxies e detectam clientes desconectados.
+        Flux<ServerSentEvent<Object>> keepAlive = Flux.interval(Duration.ofMillis(heartbeat))
+                .map(i -> ServerSentEvent.builder().comment("keep-alive").build());
+        Flux<ServerSentEvent<Object>> eventos = Flux.merge(vagaService.assinarEventos().map(VagaMapper::toEvento), keepAlive);
+        // Streams text/event-stream não usam o timeout padrão das requisições assíncronas; com timeout
+        // configurado o stream é encerrado aqui e o cliente reconecta.
+        return timeout > 0 ? eventos.take(Duration.ofMillis(timeout)) : eventos;
+    }
 }
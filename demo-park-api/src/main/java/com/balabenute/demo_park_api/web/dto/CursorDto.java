@@ -0,0 +1,22 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorDto {
+
+    private List content = new ArrayList<>();
+    private int size;
+    @JsonProperty("pageElements")
+    private int numberOfElements;
+    private String nextCursor;
+    private Long totalElements;
+}
@@ -0,0 +1,23 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EstacionamentoLoteResponseDto {
+
+    private int indice;
+    private int status;
+    private String mensagem;
+    private Map<String, String> errors;
+    private EstacionamentoResponseDto estacionamento;
+}
@@ -0,0 +1,32 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExtratoProgressoResponseDto {
+
+    private String mes;
+    private String status;
+    private long total;
+    private long processados;
+    private long gerados;
+    private long existentes;
+    private long falhas;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime inicio;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fim;
+    private double extratosPorSegundo;
+    private Long segundosRestantes;
+}
@@ -0,0 +1,19 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcupacaoResponseDto {
+
+    private long total;
+    private long livres;
+    private long ocupadas;
+    private long checkInsUltimoMinuto;
+    private long checkOutsUltimoMinuto;
+}
@@ -0,0 +1,14 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDto {
+
+    @NotBlank
+    private String refreshToken;
+}
@@ -0,0 +1,20 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SenhaMetricasResponseDto {
+
+    private long operacoes;
+    private long rejeitadas;
+    private double latenciaMediaMs;
+    private double latenciaMaximaMs;
+    private int fila;
+    private int ativas;
+}
@@ -0,0 +1,23 @@
+package com.balabenute.demo_park_api.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class SliceDto {
+
+    private List content = new ArrayList<>();
+    private boolean first;
+    private boolean last;
+    @JsonProperty("page")
+    private int number;
+    private int size;
+    @JsonProperty("pageElements")
+    private int numberOfElements;
+    private boolean hasNext;
+}
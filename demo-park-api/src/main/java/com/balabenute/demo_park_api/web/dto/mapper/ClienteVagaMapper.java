@@ -1,20 +1,41 @@
 package com.balabenute.demo_park_api.web.dto.mapper;
 
+import com.balabenute.demo_park_api.entity.Cliente;
 import com.balabenute.demo_park_api.entity.ClienteVaga;
 import com.balabenute.demo_park_api.web.dto.EstacionamentoCreateDto;
 import com.balabenute.demo_park_api.web.dto.EstacionamentoResponseDto;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import org.modelmapper.ModelMapper;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class ClienteVagaMapper {
 
     public static ClienteVaga toClienteVaga(EstacionamentoCreateDto dto) {
-        return new ModelMapper().map(dto, ClienteVaga.class);
+        Cliente cliente = new Cliente();
+        cliente.setCpf(dto.getClienteCpf());
+
+        ClienteVaga clienteVaga = new ClienteVaga();
+        clienteVaga.setPlaca(dto.getPlaca());
+        clienteVaga.setMarca(dto.getMarca());
+        clienteVaga.setModelo(dto.getModelo());
+        clienteVaga.setCor(dto.getCor());
+        clienteVaga.setCliente(cliente);
+        return clienteVaga;
     }
 
     public static EstacionamentoResponseDto toDto(ClienteVaga clienteVaga) {
-        return new ModelMapper().map(clienteVaga, EstacionamentoResponseDto.class);
+        return new EstacionamentoResponseDto(
+                clienteVaga.getPlaca(),
+                clienteVaga.getMarca(),
+                clienteVaga.getModelo(),
+                clienteVaga.getCor(),
+                clienteVaga.getCliente() != null ? clienteVaga.getCliente().getCpf() : null,
+                clienteVaga.getRecibo(),
+                clienteVaga.getDataEntrada(),
+                clienteVaga.getDataSaida(),
+                clienteVaga.getVaga() != null ? clienteVaga.getVaga().getCodigo() : null,
+                clienteVaga.getValor(),
+                clienteVaga.getDesconto()
+        );
     }
 }
@@ -1,15 +1,51 @@
 package com.balabenute.demo_park_api.web.dto.mapper;
 
+import com.balabenute.demo_park_api.service.PaginaPorCursor;
+import com.balabenute.demo_park_api.web.dto.CursorDto;
 import com.balabenute.demo_park_api.web.dto.PageableDto;
+import com.balabenute.demo_park_api.web.dto.SliceDto;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class PageableMapper {
 
     public static PageableDto toDto(Page page) {
-        return new ModelMapper().map(page, PageableDto.class);
+        PageableDto dto = new PageableDto();
+        dto.setContent(new ArrayList<>(page.getContent()));
+        dto.setFirst(page.isFirst());
+        dto.setLast(page.isLast());
+        dto.setNumber(page.getNumber());
+        dto.setSize(page.getSize());
+        dto.setNumberOfElements(page.getNumberOfElements());
+        dto.setTotalPages(page.getTotalPages());
+        dto.setTotalElements((int) page.getTotalElements());
+        return dto;
+    }
+
+    public static SliceDto toDto(Slice slice) {
+        SliceDto dto = new SliceDto();
+        dto.setContent(new ArrayList<>(slice.getContent()));
+        dto.setFirst(slice.isFirst());
+        dto.setLast(slice.isLast());
+        dto.setNumber(slice.getNumber());
+        dto.setSize(slice.getSize());
+        dto.setNumberOfElements(slice.getNumberOfElements());
+        dto.setHasNext(slice.hasNext());
+        return dto;
+    }
+
+    public static CursorDto toDto(PaginaPorCursor<?> pagina) {
+        CursorDto dto = new CursorDto();
+        dto.setContent(new ArrayList<>(pagina.conteudo()));
+        dto.setSize(pagina.tamanho());
+        dto.setNumberOfElements(pagina.conteudo().size());
+        dto.setNextCursor(pagina.proximoCursor());
+        dto.setTotalElements(pagina.total());
+        return dto;
     }
 }
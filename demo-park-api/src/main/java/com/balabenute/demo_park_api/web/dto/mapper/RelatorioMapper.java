@@ -0,0 +1,23 @@
+package com.balabenute.demo_park_api.web.dto.mapper;
+
+import com.balabenute.demo_park_api.service.ExtratoMensalService;
+import com.balabenute.demo_park_api.service.RelatorioJobService;
+import com.balabenute.demo_park_api.web.dto.ExtratoProgressoResponseDto;
+import com.balabenute.demo_park_api.web.dto.RelatorioJobResponseDto;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class RelatorioMapper {
+
+    public static RelatorioJobResponseDto toDto(RelatorioJobService.RelatorioJob job) {
+        return new RelatorioJobResponseDto(job.id(), job.status().name(), job.dataCriacao(), job.dataConclusao(),
+                job.tamanho(), job.erro());
+    }
+
+    public static ExtratoProgressoResponseDto toDto(ExtratoMensalService.Progresso progresso) {
+        return new ExtratoProgressoResponseDto(progresso.mes().toString(), progresso.status().name(), progresso.total(),
+                progresso.processados(), progresso.gerados(), progresso.existentes(), progresso.falhas(),
+                progresso.inicio(), progresso.fim(), progresso.extratosPorSegundo(), progresso.segundosRestantes());
+    }
+}
@@ -0,0 +1,15 @@
+package com.balabenute.demo_park_api.web.dto.mapper;
+
+import com.balabenute.demo_park_api.service.ProcessadorDeSenhas;
+import com.balabenute.demo_park_api.web.dto.SenhaMetricasResponseDto;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SenhaMapper {
+
+    public static SenhaMetricasResponseDto toDto(ProcessadorDeSenhas.Metricas metricas) {
+        return new SenhaMetricasResponseDto(metricas.operacoes(), metricas.rejeitadas(), metricas.latenciaMediaMs(),
+                metricas.latenciaMaximaMs(), metricas.fila(), metricas.ativas());
+    }
+}
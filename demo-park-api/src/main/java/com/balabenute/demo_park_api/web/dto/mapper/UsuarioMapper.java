@@ -3,8 +3,6 @@ package com.balabenute.demo_park_api.web.dto.mapper;
 import com.balabenute.demo_park_api.entity.Usuario;
 import com.balabenute.demo_park_api.web.dto.UsuarioCreateDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioResponseDto;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.PropertyMap;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -12,20 +10,15 @@ import java.util.stream.Collectors;
 public class UsuarioMapper {
 
     public static Usuario toUsuario(UsuarioCreateDto createDto) {
-        return new ModelMapper().map(createDto, Usuario.class);
+        Usuario usuario = new Usuario();
+        usuario.setUsername(createDto.getUsername());
+        usuario.setPassword(createDto.getPassword());
+        return usuario;
     }
 
     public static UsuarioResponseDto toDto(Usuario usuario) {
         String role = usuario.getRole().name().substring("ROLE_".length());
-        PropertyMap<Usuario, UsuarioResponseDto> props = new PropertyMap<Usuario, UsuarioResponseDto>() {
-            @Override
-            protected void configure() {
-                map().setRole(role);
-            }
-        };
-        ModelMapper mapper = new ModelMapper();
-        mapper.addMappings(props);
-        return mapper.map(usuario, UsuarioResponseDto.class);
+        return new UsuarioResponseDto(usuario.getId(), usuario.getUsername(), role);
     }
 
     public static List<UsuarioResponseDto> toListDto(List<Usuario> usuarios) {
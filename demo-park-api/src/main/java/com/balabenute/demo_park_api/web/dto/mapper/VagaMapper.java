@@ -1,20 +1,44 @@
 package com.balabenute.demo_park_api.web.dto.mapper;
 
 import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.service.ContadorDeOcupacao;
+import com.balabenute.demo_park_api.service.EventosDeVagas;
+import com.balabenute.demo_park_api.web.dto.OcupacaoResponseDto;
 import com.balabenute.demo_park_api.web.dto.VagaCreateDto;
 import com.balabenute.demo_park_api.web.dto.VagaResponseDto;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.codec.ServerSentEvent;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class VagaMapper {
 
     public static Vaga toVaga(VagaCreateDto dto) {
-        return new ModelMapper().map(dto, Vaga.class);
+        Vaga vaga = new Vaga();
+        vaga.setCodigo(dto.getCodigo());
+        vaga.setStatus(dto.getStatus() != null ? Vaga.StatusVaga.valueOf(dto.getStatus()) : null);
+        return vaga;
     }
 
     public static VagaResponseDto toDto(Vaga vaga) {
-        return new ModelMapper().map(vaga, VagaResponseDto.class);
+        return new VagaResponseDto(vaga.getId(), vaga.getCodigo(), vaga.getStatus() != null ? vaga.getStatus().name() : null);
+    }
+
+    public static OcupacaoResponseDto toDto(ContadorDeOcupacao.Ocupacao ocupacao) {
+        return new OcupacaoResponseDto(ocupacao.total(), ocupacao.livres(), ocupacao.ocupadas(),
+                ocupacao.checkInsUltimoMinuto(), ocupacao.checkOutsUltimoMinuto());
+    }
+
+    public static ServerSentEvent<Object> toEvento(EventosDeVagas.Evento evento) {
+        if (evento instanceof EventosDeVagas.VagaAlterada vaga) {
+            return ServerSentEvent.builder()
+                    .event("vaga")
+                    .data((Object) new VagaResponseDto(vaga.id(), vaga.codigo(), vaga.status().name()))
+                    .build();
+        }
+        return ServerSentEvent.builder()
+                .event("ocupacao")
+                .data((Object) toDto(((EventosDeVagas.OcupacaoAlterada) evento).ocupacao()))
+                .build();
     }
 }
@@ -1,15 +1,23 @@
 package com.balabenute.demo_park_api;
 
 import com.balabenute.demo_park_api.jwt.JwtToken;
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import com.balabenute.demo_park_api.jwt.JwtUtils;
+import com.balabenute.demo_park_api.service.ProcessadorDeSenhas;
+import com.balabenute.demo_park_api.web.dto.RefreshTokenDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioLoginDto;
 import com.balabenute.demo_park_api.web.exception.ErrorMessage;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 @Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
@@ -17,6 +25,8 @@ public class AutenticacaoIT {
 
     @Autowired
     WebTestClient testClient;
+    @Autowired
+    ProcessadorDeSenhas processadorDeSenhas;
 
     @Test
     public void autenticar_ComCredenciaisValidas_RetornarTokenComStatus200() {
@@ -132,4 +142,154 @@ public class AutenticacaoIT {
         org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
         org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(422);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void autenticar_ComPoolDeSenhasSaturado_RetornarErrorMessageStatus503() throws InterruptedException {
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            // Ocupa todas as threads e a fila do pool até a próxima tarefa ser recusada. Uma thread que
+            // ainda terminava a tarefa de outro teste pega uma tarefa da fila e abre uma vaga, então
+            // preenche de novo até uma rodada inteira, depois de uma pausa, não conseguir incluir nada.
+            int incluidas;
+            do {
+                incluidas = 0;
+                Thread.sleep(50);
+                try {
+                    while (true) {
+                        processadorDeSenhas.executar(() -> {
+                            try {
+                                return liberar.await(30, TimeUnit.SECONDS);
+                            } catch (InterruptedException ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                        });
+                        incluidas++;
+                    }
+                } catch (ServicoSobrecarregadoException ex) {
+                    // Pool saturado.
+                }
+            } while (incluidas > 0);
+
+            ErrorMessage responseBody = testClient
+                    .post()
+                    .uri("/api/v1/auth")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new UsuarioLoginDto("ana@email.com", "123456"))
+                    .exchange()
+                    .expectStatus().isEqualTo(503)
+                    .expectHeader().exists(HttpHeaders.RETRY_AFTER)
+                    .expectBody(ErrorMessage.class)
+                    .returnResult().getResponseBody();
+
+            org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+            org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(503);
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    public void renovarToken_ComRotacaoEReutilizacao_RevogarFamiliaComStatus400() {
+        JwtToken login = autenticar("ana@email.com");
+        org.assertj.core.api.Assertions.assertThat(login.getRefreshToken()).isNotBlank();
+
+        JwtToken renovado = testClient
+                .post()
+                .uri("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(login.getRefreshToken()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JwtToken.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(renovado).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(renovado.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+        testClient.get()
+                .uri("/api/v1/usuarios/100")
+                .header("Authorization", "Bearer " + renovado.getToken())
+                .exchange()
+                .expectStatus().isOk();
+
+        // Reutilizar o refresh token já trocado revoga também o que foi emitido na renovação.
+        testClient
+                .post()
+                .uri("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(login.getRefreshToken()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("status").isEqualTo(400);
+
+        testClient
+                .post()
+                .uri("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(renovado.getRefreshToken()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void logout_ComRefreshTokenValido_RevogarTokenComStatus204() {
+        JwtToken login = autenticar("bob@email.com");
+
+        testClient
+                .post()
+                .uri("/api/v1/auth/logout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(login.getRefreshToken()))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        testClient
+                .post()
+                .uri("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(login.getRefreshToken()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void logout_ComBearerToken_RecusarTokenDeAcessoComStatus401() {
+        JwtToken login = autenticar("bob@email.com");
+        JwtToken outraSessao = autenticar("bob@email.com");
+
+        testClient
+                .post()
+                .uri("/api/v1/auth/logout")
+                .header(JwtUtils.JWT_AUTHORIZATION, JwtUtils.JWT_BEARER + login.getToken())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshTokenDto(login.getRefreshToken()))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        testClient
+                .get()
+                .uri("/api/v1/usuarios/101")
+                .header(JwtUtils.JWT_AUTHORIZATION, JwtUtils.JWT_BEARER + login.getToken())
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        testClient
+                .get()
+                .uri("/api/v1/usuarios/101")
+                .header(JwtUtils.JWT_AUTHORIZATION, JwtUtils.JWT_BEARER + outraSessao.getToken())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private JwtToken autenticar(String username) {
+        return testClient
+                .post()
+                .uri("/api/v1/auth")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UsuarioLoginDto(username, "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JwtToken.class)
+                .returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,67 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.utils.CacheComExpiracao;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CacheComExpiracaoIT {
+
+    private static final long UMA_HORA = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    public void obter_AcimaDoTamanhoMaximo_RemoverAEntradaQueExpiraPrimeiro() {
+        CacheComExpiracao<String, String> cache = new CacheComExpiracao<>(2);
+
+        cache.obter("a", chave -> "A", valor -> UMA_HORA);
+        // Incluída depois, mas expira antes das demais.
+        cache.obter("b", chave -> "B", valor -> TimeUnit.MINUTES.toNanos(1));
+        cache.obter("c", chave -> "C", valor -> 2 * UMA_HORA);
+
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a")).isEqualTo("A");
+        org.assertj.core.api.Assertions.assertThat(cache.obter("b")).isNull();
+        org.assertj.core.api.Assertions.assertThat(cache.obter("c")).isEqualTo("C");
+    }
+
+    @Test
+    public void obter_ComEntradaExpirada_CarregarNovamente() {
+        CacheComExpiracao<String, String> cache = new CacheComExpiracao<>(10);
+
+        cache.obter("a", chave -> "antigo", valor -> 1);
+
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a")).isNull();
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a", chave -> "novo", valor -> UMA_HORA)).isEqualTo("novo");
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a", chave -> "outro", valor -> UMA_HORA)).isEqualTo("novo");
+    }
+
+    @Test
+    public void gravarSeAusente_ComValorValido_RetornarValorExistente() {
+        CacheComExpiracao<String, String> cache = new CacheComExpiracao<>(10);
+        String primeiro = new String("primeiro");
+
+        org.assertj.core.api.Assertions.assertThat(cache.gravarSeAusente("a", primeiro, UMA_HORA)).isNull();
+        org.assertj.core.api.Assertions.assertThat(cache.gravarSeAusente("a", "segundo", UMA_HORA)).isSameAs(primeiro);
+
+        cache.remover("a", new String("primeiro"));
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a")).isSameAs(primeiro);
+
+        cache.remover("a", primeiro);
+        org.assertj.core.api.Assertions.assertThat(cache.gravarSeAusente("a", "segundo", UMA_HORA)).isNull();
+    }
+
+    @Test
+    public void obter_ComInvalidacaoDuranteOCarregamento_NaoGuardarValorCarregado() {
+        CacheComExpiracao<String, String> cache = new CacheComExpiracao<>(10);
+
+        String carregado = cache.obter("a", chave -> {
+            // Simula a alteração confirmada enquanto o valor antigo ainda estava sendo lido.
+            cache.invalidar(chave);
+            return "antigo";
+        }, valor -> UMA_HORA);
+
+        org.assertj.core.api.Assertions.assertThat(carregado).isEqualTo("antigo");
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a")).isNull();
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a", chave -> "novo", valor -> UMA_HORA)).isEqualTo("novo");
+        org.assertj.core.api.Assertions.assertThat(cache.obter("a")).isEqualTo("novo");
+    }
+}
@@ -0,0 +1,41 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.jwt.CacheDeTokens;
+import com.balabenute.demo_park_api.jwt.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição da verificação do token no filtro JWT: antes (duas verificações completas do
+ * token) e com o {@link CacheDeTokens}. Executar com
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=CacheDeTokensBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheDeTokensBenchmark {
+
+    private final CacheDeTokens cache = new CacheDeTokens(10_000);
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        token = JwtUtils.JWT_BEARER + JwtUtils.createToken(100L, "ana@email.com", "ADMIN").getToken();
+    }
+
+    // Implementação anterior de JwtAuthorizationFilter.
+    @Benchmark
+    public String semCache() {
+        return JwtUtils.isTokenValid(token) ? JwtUtils.getUsernameFromToken(token) : null;
+    }
+
+    @Benchmark
+    public String comCache() {
+        return cache.obter(token).getSubject();
+    }
+}
@@ -0,0 +1,95 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.service.CalculadoraDeTarifa;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a {@link CalculadoraDeTarifa} com o cálculo anterior em {@code double}, para a mesma amostra
+ * de permanências (até 30 dias). Executar com
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=CalculadoraDeTarifaBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculadoraDeTarifaBenchmark {
+
+    private static final int AMOSTRAS = 1024;
+
+    private final CalculadoraDeTarifa padrao = new CalculadoraDeTarifa(new long[]{15, 60}, new long[]{500, 925},
+            15, 175, 0, "22:00", "06:00", 0);
+    private final CalculadoraDeTarifa comTetoENoturno = new CalculadoraDeTarifa(new long[]{15, 60}, new long[]{500, 925},
+            15, 175, 5000, "22:00", "06:00", 100);
+
+    private LocalDateTime[] entradas;
+    private LocalDateTime[] saidas;
+    private int proxima;
+
+    @Setup
+    public void setup() {
+        entradas = new LocalDateTime[AMOSTRAS];
+        saidas = new LocalDateTime[AMOSTRAS];
+        LocalDateTime base = LocalDateTime.of(2024, 3, 13, 10, 15, 27);
+        for (int i = 0; i < AMOSTRAS; i++) {
+            entradas[i] = base.plusMinutes(ThreadLocalRandom.current().nextLong(0, 525_600));
+            // Metade das permanências no mesmo dia, a outra metade em até 30 dias.
+            long limite = i % 2 == 0 ? 12L * 60 * 60 : 30L * 24 * 60 * 60;
+            saidas[i] = entradas[i].plusSeconds(ThreadLocalRandom.current().nextLong(0, limite));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculadora() {
+        int i = proxima++ & (AMOSTRAS - 1);
+        return padrao.calcular(entradas[i], saidas[i]);
+    }
+
+    @Benchmark
+    public long calculadora_Centavos() {
+        int i = proxima++ & (AMOSTRAS - 1);
+        return padrao.calcularCentavos(entradas[i], saidas[i]);
+    }
+
+    @Benchmark
+    public BigDecimal calculadora_ComTetoENoturno() {
+        int i = proxima++ & (AMOSTRAS - 1);
+        return comTetoENoturno.calcular(entradas[i], saidas[i]);
+    }
+
+    @Benchmark
+    public BigDecimal calculoAnterior() {
+        int i = proxima++ & (AMOSTRAS - 1);
+        return calcularCustoAnterior(entradas[i], saidas[i]);
+    }
+
+    // Implementação anterior de EstacionamentoUtils.calcularCusto.
+    private static BigDecimal calcularCustoAnterior(LocalDateTime entrada, LocalDateTime saida) {
+        long minutes = entrada.until(saida, ChronoUnit.MINUTES);
+        double total = 0.0;
+
+        if (minutes <= 15) {
+            total = 5.00;
+        } else if (minutes <= 60) {
+            total = 9.25;
+        } else {
+            long addicionalMinutes = minutes - 60;
+            Double totalParts = ((double) addicionalMinutes / 15);
+            if (totalParts > totalParts.intValue()) {
+                total += 9.25 + (1.75 * (totalParts.intValue() + 1));
+            } else {
+                total += 9.25 + (1.75 * totalParts.intValue());
+            }
+        }
+
+        return new BigDecimal(total).setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,85 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.service.CalculadoraDeTarifa;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class CalculadoraDeTarifaIT {
+
+    private static final LocalDateTime ENTRADA = LocalDateTime.of(2024, 3, 13, 10, 15, 27);
+
+    @Test
+    public void calcular_ComTarifaPadrao_RetornarMesmoValorDoCalculoAnterior() {
+        CalculadoraDeTarifa calculadora = calculadora(0, 0);
+
+        for (long segundos = -60; segundos <= 3 * 24 * 60 * 60; segundos += 7) {
+            LocalDateTime saida = ENTRADA.plusSeconds(segundos);
+            org.assertj.core.api.Assertions.assertThat(calculadora.calcular(ENTRADA, saida))
+                    .isEqualTo(calcularCustoAnterior(ENTRADA, saida));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime entrada = ENTRADA.plusMinutes(ThreadLocalRandom.current().nextLong(0, 525_600));
+            LocalDateTime saida = entrada.plusSeconds(ThreadLocalRandom.current().nextLong(0, 30L * 24 * 60 * 60));
+            org.assertj.core.api.Assertions.assertThat(calculadora.calcular(entrada, saida))
+                    .isEqualTo(calcularCustoAnterior(entrada, saida));
+        }
+    }
+
+    @Test
+    public void calcular_ComTetoDiario_RetornarTetoPorPeriodo() {
+        CalculadoraDeTarifa calculadora = calculadora(5000, 0);
+
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcularCentavos(ENTRADA, ENTRADA.plusHours(3)))
+                .isEqualTo(925 + 8 * 175);
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcularCentavos(ENTRADA, ENTRADA.plusHours(23)))
+                .isEqualTo(5000);
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcularCentavos(ENTRADA, ENTRADA.plusHours(24).plusMinutes(30)))
+                .isEqualTo(5000 + 2 * 175);
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcularCentavos(ENTRADA, ENTRADA.plusDays(3)))
+                .isEqualTo(3 * 5000);
+    }
+
+    @Test
+    public void calcular_ComTarifaNoturna_RetornarPrecoNoturnoNasFracoesDaNoite() {
+        CalculadoraDeTarifa calculadora = calculadora(0, 100);
+        LocalDateTime entrada = LocalDateTime.of(2024, 3, 13, 20, 0);
+
+        // 21:00-22:00 no preço normal, 22:00-23:00 no noturno.
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcularCentavos(entrada, entrada.plusHours(3)))
+                .isEqualTo(925 + 4 * 175 + 4 * 100);
+        org.assertj.core.api.Assertions.assertThat(calculadora.calcular(entrada, entrada.plusHours(3)))
+                .isEqualTo(new BigDecimal("20.25"));
+    }
+
+    private static CalculadoraDeTarifa calculadora(long tetoDiarioCentavos, long noturnoCentavos) {
+        return new CalculadoraDeTarifa(new long[]{15, 60}, new long[]{500, 925}, 15, 175,
+                tetoDiarioCentavos, "22:00", "06:00", noturnoCentavos);
+    }
+
+    // Cálculo em double usado antes da CalculadoraDeTarifa.
+    private static BigDecimal calcularCustoAnterior(LocalDateTime entrada, LocalDateTime saida) {
+        long minutes = entrada.until(saida, ChronoUnit.MINUTES);
+        double total = 0.0;
+
+        if (minutes <= 15) {
+            total = 5.00;
+        } else if (minutes <= 60) {
+            total = 9.25;
+        } else {
+            long addicionalMinutes = minutes - 60;
+            Double totalParts = ((double) addicionalMinutes / 15);
+            if (totalParts > totalParts.intValue()) {
+                total += 9.25 + (1.75 * (totalParts.intValue() + 1));
+            } else {
+                total += 9.25 + (1.75 * totalParts.intValue());
+            }
+        }
+
+        return new BigDecimal(total).setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
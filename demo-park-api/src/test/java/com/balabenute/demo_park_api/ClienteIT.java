@@ -3,6 +3,7 @@ package com.balabenute.demo_park_api;
 import com.balabenute.demo_park_api.web.dto.ClienteCreateDto;
 import com.balabenute.demo_park_api.web.dto.ClienteResponseDto;
 import com.balabenute.demo_park_api.web.dto.PageableDto;
+import com.balabenute.demo_park_api.web.dto.SliceDto;
 import com.balabenute.demo_park_api.web.exception.ErrorMessage;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -192,6 +193,33 @@ public class ClienteIT {
         org.assertj.core.api.Assertions.assertThat(responseBody.getTotalPages()).isEqualTo(2);
     }
 
+    @Test
+    public void buscarClientes_SemContagemPeloAdmin_RetornarSliceComStatus200() {
+        SliceDto responseBody = testClient
+                .get()
+                .uri("/api/v1/clientes?contagem=false&size=1&page=0")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SliceDto.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getContent().size()).isEqualTo(1);
+        org.assertj.core.api.Assertions.assertThat(responseBody.isHasNext()).isTrue();
+
+        testClient
+                .get()
+                .uri("/api/v1/clientes?contagem=false&size=1&page=1")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("hasNext").isEqualTo(false)
+                .jsonPath("pageElements").isEqualTo(1)
+                .jsonPath("totalElements").doesNotExist();
+    }
+
     @Test
     public void buscarClientes_ComPaginacaoPeloCliente_RetornarErrorMessageComStatus403() {
         ErrorMessage responseBody = testClient
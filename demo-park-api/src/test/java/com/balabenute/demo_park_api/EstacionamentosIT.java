@@ -1,14 +1,51 @@
 package com.balabenute.demo_park_api;
 
+import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.exception.ChaveIdempotenciaInvalidaException;
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import com.balabenute.demo_park_api.repository.IdempotenciaRepository;
+import com.balabenute.demo_park_api.service.CacheDeIdempotencia;
+import com.balabenute.demo_park_api.service.ClienteService;
+import com.balabenute.demo_park_api.service.ClienteVagaService;
+import com.balabenute.demo_park_api.service.EventosDeVagas;
+import com.balabenute.demo_park_api.service.IdempotenciaService;
+import com.balabenute.demo_park_api.service.VagaAlocador;
+import com.balabenute.demo_park_api.service.VagaService;
+import com.balabenute.demo_park_api.web.dto.CursorDto;
 import com.balabenute.demo_park_api.web.dto.EstacionamentoCreateDto;
 import com.balabenute.demo_park_api.web.dto.PageableDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Sql(scripts = "/sql/estacionamentos/estacionamentos-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -18,6 +55,27 @@ public class EstacionamentosIT {
     @Autowired
     WebTestClient testClient;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    IdempotenciaRepository idempotenciaRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ClienteService clienteService;
+
+    @Autowired
+    ClienteVagaService clienteVagaService;
+
+    @Autowired
+    VagaService vagaService;
+
+    @Autowired
+    VagaAlocador vagaAlocador;
+
     @Test
     public void criarCheckin_ComDadosValidos_RetornarCreatedAndLocation() {
         EstacionamentoCreateDto createDto = EstacionamentoCreateDto.builder()
@@ -126,6 +184,79 @@ public class EstacionamentosIT {
                 .jsonPath("method").isEqualTo("POST");
     }
 
+    @Test
+    public void criarCheckinEmLote_ComItensValidosEInvalidos_RetornarResultadoPorItem() {
+        List<EstacionamentoCreateDto> lote = List.of(
+                EstacionamentoCreateDto.builder().placa("LOT-0001").marca("FIAT").modelo("PALIO")
+                        .cor("AZUL").clienteCpf("39166418089").build(),
+                EstacionamentoCreateDto.builder().placa("LOT-0002").marca("FORD").modelo("KA")
+                        .cor("PRETO").clienteCpf("22726057020").build(),
+                EstacionamentoCreateDto.builder().placa("LOT-0003").marca("FIAT").modelo("UNO")
+                        .cor("BRANCO").clienteCpf("49642861003").build(),
+                EstacionamentoCreateDto.builder().placa("").marca("").modelo("")
+                        .cor("").clienteCpf("").build(),
+                EstacionamentoCreateDto.builder().placa("LOT-0005").marca("FIAT").modelo("UNO")
+                        .cor("BRANCO").clienteCpf("39166418089").build()
+        );
+
+        testClient.post()
+                .uri("/api/v1/estacionamentos/check-in/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .bodyValue(lote)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(5)
+                .jsonPath("[0].status").isEqualTo(201)
+                .jsonPath("[0].estacionamento.placa").isEqualTo("LOT-0001")
+                .jsonPath("[0].estacionamento.recibo").exists()
+                .jsonPath("[0].estacionamento.vagaCodigo").exists()
+                .jsonPath("[1].status").isEqualTo(201)
+                .jsonPath("[1].estacionamento.clienteCpf").isEqualTo("22726057020")
+                .jsonPath("[2].status").isEqualTo(404)
+                .jsonPath("[3].status").isEqualTo(422)
+                .jsonPath("[3].errors.placa").exists()
+                .jsonPath("[4].status").isEqualTo(404);
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from vagas where status = 'LIVRE'", Integer.class)).isEqualTo(0);
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from clientes_tem_vagas where placa like 'LOT-%'", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void criarCheckinEmLote_ComItemNulo_RetornarItemComStatus400() {
+        testClient.post()
+                .uri("/api/v1/estacionamentos/check-in/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .bodyValue("[{\"placa\":\"LOT-0001\",\"marca\":\"FIAT\",\"modelo\":\"PALIO\",\"cor\":\"AZUL\"," +
+                        "\"clienteCpf\":\"39166418089\"}, null]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("[0].status").isEqualTo(201)
+                .jsonPath("[1].indice").isEqualTo(1)
+                .jsonPath("[1].status").isEqualTo(400);
+    }
+
+    @Test
+    public void criarCheckinEmLote_ComLoteVazio_RetornarErrorStatus422() {
+        testClient.post()
+                .uri("/api/v1/estacionamentos/check-in/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .bodyValue(List.of())
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("status").isEqualTo("422")
+                .jsonPath("path").isEqualTo("/api/v1/estacionamentos/check-in/batch")
+                .jsonPath("method").isEqualTo("POST");
+    }
+
     @Test
     public void buscaCheckin_ComPerfilAdmin_RetornarDadosStatus200() {
         testClient.get()
@@ -175,6 +306,42 @@ public class EstacionamentosIT {
                 .jsonPath("method").isEqualTo("GET");
     }
 
+    @Test
+    public void buscaCheckin_ComCheckOutFeitoPorOutraInstancia_RetornarDoIndiceOuConfirmarNoBanco() {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        Map responseBody = testClient.post()
+                .uri("/api/v1/estacionamentos/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .bodyValue(EstacionamentoCreateDto.builder().placa("NOS-0001").marca("FIAT").modelo("PALIO")
+                        .cor("AZUL").clienteCpf("39166418089").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody();
+        // Saída gravada direto no banco, sem passar pelo índice desta instância.
+        jdbcTemplate.update("update clientes_tem_vagas set data_saida = current_timestamp where numero_recibo = ?",
+                responseBody.get("recibo"));
+
+        // Por padrão a consulta é atendida pelo índice em memória, sem ir ao banco.
+        testClient.get()
+                .uri("/api/v1/estacionamentos/check-in/{recibo}", responseBody.get("recibo"))
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk();
+
+        ReflectionTestUtils.setField(clienteVagaService, "confirmarNoBanco", true);
+        try {
+            testClient.get()
+                    .uri("/api/v1/estacionamentos/check-in/{recibo}", responseBody.get("recibo"))
+                    .headers(authorization)
+                    .exchange()
+                    .expectStatus().isNotFound();
+        } finally {
+            ReflectionTestUtils.setField(clienteVagaService, "confirmarNoBanco", false);
+        }
+    }
+
     @Test
     public void criarCheckOut_ComReciboExistente_RetornarSucesso() {
         testClient.put()
@@ -196,6 +363,351 @@ public class EstacionamentosIT {
                 .jsonPath("desconto").exists();
     }
 
+    @Test
+    public void criarCheckOutEmLote_ComRecibosExistentesEInexistentes_RetornarResultadoPorItem() {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        List<String> recibos = new ArrayList<>();
+        for (String placa : List.of("OUT-0001", "OUT-0002")) {
+            Map responseBody = testClient.post()
+                    .uri("/api/v1/estacionamentos/check-in")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(authorization)
+                    .bodyValue(EstacionamentoCreateDto.builder().placa(placa).marca("FIAT").modelo("PALIO")
+                            .cor("AZUL").clienteCpf("39166418089").build())
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectBody(Map.class)
+                    .returnResult().getResponseBody();
+            recibos.add((String) responseBody.get("recibo"));
+        }
+
+        testClient.put()
+                .uri("/api/v1/estacionamentos/check-out/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .bodyValue(List.of(recibos.get(0), "20233315-102200", recibos.get(1), recibos.get(0)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("[0].status").isEqualTo(200)
+                .jsonPath("[0].estacionamento.placa").isEqualTo("OUT-0001")
+                .jsonPath("[0].estacionamento.dataSaida").exists()
+                .jsonPath("[0].estacionamento.valor").isEqualTo(5.0)
+                .jsonPath("[0].estacionamento.desconto").exists()
+                .jsonPath("[1].status").isEqualTo(404)
+                .jsonPath("[2].status").isEqualTo(200)
+                .jsonPath("[2].estacionamento.placa").isEqualTo("OUT-0002")
+                .jsonPath("[3].status").isEqualTo(404);
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from vagas where status = 'LIVRE'", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void criarCheckOutEmLote_ComReciboNuloOuEmBranco_RetornarItemComStatus400() {
+        testClient.put()
+                .uri("/api/v1/estacionamentos/check-out/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .bodyValue("[null, \"20230313-101300\", \" \"]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("[0].indice").isEqualTo(0)
+                .jsonPath("[0].status").isEqualTo(400)
+                .jsonPath("[1].status").isEqualTo(200)
+                .jsonPath("[1].estacionamento.recibo").isEqualTo("20230313-101300")
+                .jsonPath("[2].indice").isEqualTo(2)
+                .jsonPath("[2].status").isEqualTo(400);
+    }
+
+    @Test
+    public void criarCheckOut_ComDezEstacionamentosCompletos_RetornarDesconto() {
+        jdbcTemplate.update("update clientes set total_estacionamentos = 10 where id = 20");
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        Map responseBody = testClient.post()
+                .uri("/api/v1/estacionamentos/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .bodyValue(EstacionamentoCreateDto.builder().placa("DES-0010").marca("FIAT").modelo("PALIO")
+                        .cor("AZUL").clienteCpf("39166418089").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody();
+
+        testClient.put()
+                .uri("/api/v1/estacionamentos/check-out/{recibo}", responseBody.get("recibo"))
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("valor").isEqualTo(5.0)
+                .jsonPath("desconto").isEqualTo(1.5);
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select total_estacionamentos from clientes where id = 20", Long.class)).isEqualTo(11L);
+    }
+
+    @Test
+    public void recalcularTotalEstacionamentos_ComRoleAdmin_RetornarTotaisDoHistorico() {
+        jdbcTemplate.update("update clientes set total_estacionamentos = 42");
+        jdbcTemplate.update("update clientes_tem_vagas set data_saida = '2023-03-13 11:15:00' where numero_recibo = '20230313-101300'");
+
+        testClient.post()
+                .uri("/api/v1/clientes/total-estacionamentos/recalcular")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForList(
+                "select total_estacionamentos from clientes order by id", Long.class)).containsExactly(0L, 1L);
+    }
+
+    @Test
+    public void preencherTotalEstacionamentos_ComContadorZeradoEHistorico_PreencherSomenteAusentes() {
+        jdbcTemplate.update("update clientes_tem_vagas set data_saida = '2023-03-14 11:15:00' where id_cliente = 20");
+        jdbcTemplate.update("update clientes_tem_vagas set data_saida = '2023-03-14 11:15:00' where id_cliente = 10");
+        jdbcTemplate.update("update clientes set total_estacionamentos = 7 where id = 10");
+
+        clienteService.preencherTotalEstacionamentos();
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForList(
+                "select total_estacionamentos from clientes order by id", Long.class)).containsExactly(7L, 2L);
+    }
+
+    @Test
+    public void criarCheckOut_ComRequisicoesConcorrentesDoMesmoRecibo_RetornarUmSucesso() throws Exception {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        Map responseBody = testClient.post()
+                .uri("/api/v1/estacionamentos/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .bodyValue(EstacionamentoCreateDto.builder().placa("CON-0001").marca("FIAT").modelo("PALIO")
+                        .cor("AZUL").clienteCpf("39166418089").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody();
+        String recibo = (String) responseBody.get("recibo");
+
+        testClient.get()
+                .uri("/api/v1/estacionamentos/check-in/{recibo}", recibo)
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("placa").isEqualTo("CON-0001")
+                .jsonPath("clienteCpf").isEqualTo("39166418089");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> status = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            status.add(executor.submit(() -> testClient.put()
+                    .uri("/api/v1/estacionamentos/check-out/{recibo}", recibo)
+                    .headers(authorization)
+                    .exchange()
+                    .returnResult(String.class)
+                    .getStatus().value()));
+        }
+        List<Integer> respostas = new ArrayList<>();
+        for (Future<Integer> resposta : status) {
+            respostas.add(resposta.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        org.assertj.core.api.Assertions.assertThat(respostas).containsOnlyOnce(200).containsOnly(200, 404);
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select total_estacionamentos from clientes where id = 20", Long.class)).isEqualTo(1L);
+
+        testClient.get()
+                .uri("/api/v1/estacionamentos/check-in/{recibo}", recibo)
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void assinarEventos_ComCheckInRealizado_RetornarEventosDeVagaEOcupacao() {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        AtomicBoolean checkInEnviado = new AtomicBoolean();
+
+        List<ServerSentEvent<Map>> eventos = testClient.get()
+                .uri("/api/v1/vagas/eventos")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map>>() {
+                })
+                .getResponseBody()
+                .filter(evento -> evento.event() != null)
+                .doOnNext(evento -> {
+                    // O check-in só é feito depois da ocupação inicial, quando a assinatura já está ativa.
+                    if (checkInEnviado.compareAndSet(false, true)) {
+                        CompletableFuture.runAsync(() -> testClient.post()
+                                .uri("/api/v1/estacionamentos/check-in")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .headers(authorization)
+                                .bodyValue(EstacionamentoCreateDto.builder().placa("SSE-0001").marca("FIAT")
+                                        .modelo("PALIO").cor("AZUL").clienteCpf("39166418089").build())
+                                .exchange()
+                                .expectStatus().isCreated());
+                    }
+                })
+                .take(3)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        org.assertj.core.api.Assertions.assertThat(eventos).extracting(ServerSentEvent::event)
+                .containsExactly("ocupacao", "vaga", "ocupacao");
+        org.assertj.core.api.Assertions.assertThat(eventos.get(1).data()).containsEntry("status", "OCUPADA");
+        org.assertj.core.api.Assertions.assertThat(eventos.get(1).data().get("codigo")).isIn("A-04", "A-05");
+        org.assertj.core.api.Assertions.assertThat(((Number) eventos.get(2).data().get("ocupadas")).longValue())
+                .isEqualTo(((Number) eventos.get(0).data().get("ocupadas")).longValue() + 1);
+    }
+
+    @Test
+    public void assinarEventos_SemToken_RetornarErrorStatus401() {
+        testClient.get()
+                .uri("/api/v1/vagas/eventos")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void assinarEventos_AcimaDoMaximoDeAssinantes_RecusarAteUmaAssinaturaTerminar() {
+        EventosDeVagas eventosDeVagas = new EventosDeVagas(256, 1);
+        Supplier<EventosDeVagas.Evento> inicial = () -> new EventosDeVagas.VagaAlterada(1L, "A-01", Vaga.StatusVaga.LIVRE);
+
+        // Montado e descartado sem assinatura: não reserva vaga.
+        eventosDeVagas.assinar(inicial);
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.getAssinantes()).isZero();
+
+        Flux<EventosDeVagas.Evento> montadaAntesDoLimite = eventosDeVagas.assinar(inicial);
+        Disposable primeira = eventosDeVagas.assinar(inicial).subscribe();
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.getAssinantes()).isEqualTo(1);
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> eventosDeVagas.assinar(inicial))
+                .isInstanceOf(ServicoSobrecarregadoException.class);
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> montadaAntesDoLimite.blockFirst())
+                .isInstanceOf(ServicoSobrecarregadoException.class);
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.getAssinantes()).isEqualTo(1);
+
+        primeira.dispose();
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.getAssinantes()).isZero();
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.assinar(inicial).blockFirst())
+                .isInstanceOf(EventosDeVagas.VagaAlterada.class);
+        org.assertj.core.api.Assertions.assertThat(eventosDeVagas.getAssinantes()).isZero();
+    }
+
+    @Test
+    public void criarCheckinECheckOut_ComIdempotencyKeyRepetida_RetornarRespostaOriginal() {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        EstacionamentoCreateDto createDto = EstacionamentoCreateDto.builder()
+                .placa("IDE-0001").marca("FIAT").modelo("PALIO").cor("AZUL").clienteCpf("39166418089").build();
+        String chave = UUID.randomUUID().toString();
+
+        List<String> recibos = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Map responseBody = testClient.post()
+                    .uri("/api/v1/estacionamentos/check-in")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(authorization)
+                    .header("Idempotency-Key", chave)
+                    .bodyValue(createDto)
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectHeader().exists(HttpHeaders.LOCATION)
+                    .expectBody(Map.class)
+                    .returnResult().getResponseBody();
+            recibos.add((String) responseBody.get("recibo"));
+        }
+        org.assertj.core.api.Assertions.assertThat(recibos.get(1)).isEqualTo(recibos.get(0));
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from clientes_tem_vagas where placa = 'IDE-0001'", Integer.class)).isEqualTo(1);
+
+        List<Map> checkOuts = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            checkOuts.add(testClient.put()
+                    .uri("/api/v1/estacionamentos/check-out/{recibo}", recibos.get(0))
+                    .headers(authorization)
+                    .header("Idempotency-Key", chave)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Map.class)
+                    .returnResult().getResponseBody());
+        }
+        org.assertj.core.api.Assertions.assertThat(checkOuts.get(1)).isEqualTo(checkOuts.get(0));
+
+        testClient.put()
+                .uri("/api/v1/estacionamentos/check-out/{recibo}", recibos.get(0))
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void criarCheckin_ComIdempotencyKeyRepetidaEOutroCorpo_RetornarErrorStatus422() {
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+        String chave = UUID.randomUUID().toString();
+
+        testClient.post()
+                .uri("/api/v1/estacionamentos/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .header("Idempotency-Key", chave)
+                .bodyValue(EstacionamentoCreateDto.builder()
+                        .placa("IDE-0002").marca("FIAT").modelo("PALIO").cor("AZUL").clienteCpf("39166418089").build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        testClient.post()
+                .uri("/api/v1/estacionamentos/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .header("Idempotency-Key", chave)
+                .bodyValue(EstacionamentoCreateDto.builder()
+                        .placa("IDE-0003").marca("FIAT").modelo("PALIO").cor("AZUL").clienteCpf("39166418089").build())
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("status").isEqualTo("422")
+                .jsonPath("path").isEqualTo("/api/v1/estacionamentos/check-in");
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from clientes_tem_vagas where placa = 'IDE-0003'", Integer.class)).isZero();
+    }
+
+    @Test
+    public void executarIdempotente_ComChavePersistidaPorOutraInstancia_RetornarResultadoRecarregado() {
+        IdempotenciaService instancia1 = new IdempotenciaService(new CacheDeIdempotencia(100, Duration.ofHours(1)),
+                idempotenciaRepository, new ObjectMapper(), transactionTemplate, true, Duration.ofHours(1));
+        IdempotenciaService instancia2 = new IdempotenciaService(new CacheDeIdempotencia(100, Duration.ofHours(1)),
+                idempotenciaRepository, new ObjectMapper(), transactionTemplate, true, Duration.ofHours(1));
+        AtomicInteger execucoes = new AtomicInteger();
+        String chave = UUID.randomUUID().toString();
+
+        String primeiro = instancia1.executar("check-in", chave, "corpo",
+                () -> "REC-" + execucoes.incrementAndGet(), resultado -> resultado, recibo -> "recarregado:" + recibo);
+        String repetido = instancia2.executar("check-in", chave, "corpo",
+                () -> "REC-" + execucoes.incrementAndGet(), resultado -> resultado, recibo -> "recarregado:" + recibo);
+
+        org.assertj.core.api.Assertions.assertThat(primeiro).isEqualTo("REC-1");
+        org.assertj.core.api.Assertions.assertThat(repetido).isEqualTo("recarregado:REC-1");
+        org.assertj.core.api.Assertions.assertThat(execucoes.get()).isEqualTo(1);
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> new IdempotenciaService(
+                        new CacheDeIdempotencia(100, Duration.ofHours(1)), idempotenciaRepository, new ObjectMapper(),
+                        transactionTemplate, true, Duration.ofHours(1))
+                        .executar("check-in", chave, "outro corpo", () -> "REC-" + execucoes.incrementAndGet(),
+                                resultado -> resultado, recibo -> "recarregado:" + recibo))
+                .isInstanceOf(ChaveIdempotenciaInvalidaException.class);
+        org.assertj.core.api.Assertions.assertThat(execucoes.get()).isEqualTo(1);
+        idempotenciaRepository.deleteAll();
+    }
+
     @Test
     public void criarCheckOut_ComReciboInexistente_RetornarErrorStatus404() {
         testClient.put()
@@ -253,6 +765,81 @@ public class EstacionamentosIT {
         org.assertj.core.api.Assertions.assertThat(responseBody.getSize()).isEqualTo(1);
     }
 
+    @Test
+    public void buscarEstacionamentos_PorClienteCpfComCursor_RetornarPaginasSequenciais() {
+        CursorDto responseBody = testClient.get()
+                .uri("/api/v1/estacionamentos/cpf/{cpf}?cursor=&size=1&contagem=true", "39166418089")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CursorDto.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getContent().size()).isEqualTo(1);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getTotalElements()).isEqualTo(2);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getNextCursor()).isNotBlank();
+
+        responseBody = testClient.get()
+                .uri("/api/v1/estacionamentos/cpf/{cpf}?cursor={cursor}&size=1", "39166418089", responseBody.getNextCursor())
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CursorDto.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getContent().size()).isEqualTo(1);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getTotalElements()).isNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getNextCursor()).isNull();
+
+        testClient.get()
+                .uri("/api/v1/estacionamentos?cursor=invalido&size=1")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "jose@email.com", "123456"))
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    public void exportarEstacionamentos_EmNdjsonECsvCompactado_RetornarLinhasDoPeriodo() throws Exception {
+        String ndjson = testClient.get()
+                .uri("/api/v1/estacionamentos/exportacao?inicio=2023-03-13&fim=2023-03-14")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(ndjson).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(ndjson.split("\n")).hasSize(3);
+        org.assertj.core.api.Assertions.assertThat(ndjson).startsWith(
+                "{\"numeroRecibo\":\"20230313-101300\",\"placa\":\"FIT-1020\"");
+
+        byte[] gzip = testClient.get()
+                .uri("/api/v1/estacionamentos/exportacao?inicio=2023-03-13&fim=2023-03-13&cpf=39166418089&formato=CSV&gzip=true")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/gzip")
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        String csv;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        org.assertj.core.api.Assertions.assertThat(csv.split("\r\n")).containsExactly(
+                "numeroRecibo,placa,marca,modelo,cor,dataEntrada,dataSaida,valor,desconto,clienteCpf,vagaCodigo",
+                "20230313-101300,FIT-1020,FIAT,PALIO,VERDE,2023-03-13 10:15:00,,,,39166418089,A-01");
+
+        testClient.get()
+                .uri("/api/v1/estacionamentos/exportacao?inicio=2023-03-13&fim=2023-03-14")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "bob@email.com", "123456"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
     @Test
     public void buscarEstacionamentos_PorClienteCpfPerfilCliente_RetornarErrorStatus403() {
         testClient.get()
@@ -297,6 +884,19 @@ public class EstacionamentosIT {
         org.assertj.core.api.Assertions.assertThat(responseBody.getSize()).isEqualTo(1);
     }
 
+    @Test
+    public void buscarEstacionamentos_DoClienteLogadoSemContagem_RetornarSlice() {
+        testClient.get()
+                .uri("/api/v1/estacionamentos?contagem=false&size=1&page=0")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "jose@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content[0].recibo").isEqualTo("20230313-101300")
+                .jsonPath("hasNext").isEqualTo(true)
+                .jsonPath("totalPages").doesNotExist();
+    }
+
     @Test
     public void buscarEstacionamentos_PorDoClienteLogadoComPerfilAdmin_RetornarErrorStatus403() {
         testClient.get()
@@ -309,4 +909,71 @@ public class EstacionamentosIT {
                 .jsonPath("path").isEqualTo("/api/v1/estacionamentos")
                 .jsonPath("method").isEqualTo("GET");
     }
+
+    @Sql(scripts = "/sql/estacionamentos/estacionamento-insert-vagas-concorrencia.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = "/sql/estacionamentos/estacionamento-delete-vagas-concorrencia.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @Test
+    public void criarCheckin_ComRequisicoesConcorrentes_RetornarVagasDistintas() throws Exception {
+        criarCheckinsConcorrentes(200);
+    }
+
+    // Com o mapa carregado depois do script, as vagas saem da reserva por CAS em memória e não da busca no banco.
+    @Sql(scripts = "/sql/estacionamentos/estacionamento-insert-vagas-concorrencia.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = "/sql/estacionamentos/estacionamento-delete-vagas-concorrencia.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @Test
+    public void criarCheckin_ComRequisicoesConcorrentesEMapaDeVagasCarregado_RetornarVagasDistintas() throws Exception {
+        vagaService.carregarMapaDeVagas();
+        try {
+            criarCheckinsConcorrentes(200);
+        } finally {
+            // As vagas do script são apagadas depois do teste; o mapa volta vazio, como na inicialização.
+            vagaAlocador.recarregar(List.of());
+        }
+    }
+
+    private void criarCheckinsConcorrentes(int totalDeCheckins) throws Exception {
+        WebTestClient client = testClient.mutate().responseTimeout(Duration.ofSeconds(60)).build();
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(client, "ana@email.com", "123456");
+
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Map>> respostas = new ArrayList<>();
+        for (int i = 0; i < totalDeCheckins; i++) {
+            EstacionamentoCreateDto createDto = EstacionamentoCreateDto.builder()
+                    .placa(String.format("CON-%04d", i)).marca("FIAT").modelo("PALIO 1.0")
+                    .cor("AZUL").clienteCpf(i % 2 == 0 ? "39166418089" : "22726057020")
+                    .build();
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return client.post()
+                        .uri("/api/v1/estacionamentos/check-in")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(authorization)
+                        .bodyValue(createDto)
+                        .exchange()
+                        .expectStatus().isCreated()
+                        .expectBody(Map.class)
+                        .returnResult().getResponseBody();
+            }));
+        }
+        largada.countDown();
+
+        Set<String> vagas = new HashSet<>();
+        Set<String> recibos = new HashSet<>();
+        for (Future<Map> resposta : respostas) {
+            Map responseBody = resposta.get(2, TimeUnit.MINUTES);
+            vagas.add((String) responseBody.get("vagaCodigo"));
+            recibos.add((String) responseBody.get("recibo"));
+        }
+        executor.shutdown();
+
+        org.assertj.core.api.Assertions.assertThat(vagas).hasSize(totalDeCheckins);
+        org.assertj.core.api.Assertions.assertThat(recibos).hasSize(totalDeCheckins);
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct id_vaga) from clientes_tem_vagas where data_saida is null", Integer.class))
+                .isEqualTo(totalDeCheckins);
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from vagas where status = 'OCUPADA'", Integer.class))
+                .isEqualTo(totalDeCheckins);
+    }
 }
@@ -0,0 +1,50 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.entity.RevogacaoToken;
+import com.balabenute.demo_park_api.service.RegistroDeRevogacoes;
+import com.balabenute.demo_park_api.utils.FiltroDeBloom;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+public class FiltroDeBloomIT {
+
+    @Test
+    public void talvezContenha_ComValoresAdicionados_NuncaRetornarFalsoNegativo() {
+        FiltroDeBloom filtro = new FiltroDeBloom(10_000, 0.01);
+        List<String> adicionados = new java.util.ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String jti = UUID.randomUUID().toString();
+            filtro.adicionar(jti);
+            adicionados.add(jti);
+        }
+
+        org.assertj.core.api.Assertions.assertThat(adicionados).allMatch(filtro::talvezContenha);
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.talvezContenha(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+        // 1% configurado; a margem evita falhas por variação aleatória.
+        org.assertj.core.api.Assertions.assertThat(falsosPositivos).isLessThan(2_000);
+    }
+
+    @Test
+    public void revogado_ComJtiECorteDeUsuario_RecusarSomenteTokensRevogados() {
+        RegistroDeRevogacoes registro = new RegistroDeRevogacoes(1_000);
+        LocalDateTime corte = LocalDateTime.now();
+        long corteMs = corte.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        registro.recarregar(List.of(new RevogacaoToken(1L, "jti-revogado", null, corte, corte.plusMinutes(30))));
+        registro.registrar(new RevogacaoToken(2L, null, 100L, corte, corte.plusMinutes(30)));
+
+        org.assertj.core.api.Assertions.assertThat(registro.revogado("jti-revogado", 101L, corteMs + 1)).isTrue();
+        org.assertj.core.api.Assertions.assertThat(registro.revogado("jti-valido", 101L, corteMs - 1)).isFalse();
+        org.assertj.core.api.Assertions.assertThat(registro.revogado("jti-valido", 100L, corteMs - 1)).isTrue();
+        org.assertj.core.api.Assertions.assertThat(registro.revogado("jti-valido", 100L, corteMs)).isFalse();
+    }
+}
@@ -0,0 +1,43 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.service.GeradorDeRecibo;
+import com.balabenute.demo_park_api.service.GeradorDeReciboSequencial;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o gerador de recibos com o formato anterior (data e hora com resolução de segundos).
+ * Executar com {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=GeradorDeReciboBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeradorDeReciboBenchmark {
+
+    private final GeradorDeRecibo gerador = new GeradorDeReciboSequencial(1);
+
+    @Benchmark
+    public String sequencial() {
+        return gerador.gerar();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String sequencial_4Threads() {
+        return gerador.gerar();
+    }
+
+    // Implementação anterior de EstacionamentoUtils.gerarRecibo.
+    @Benchmark
+    public String dataHora() {
+        String recibo = LocalDateTime.now().toString().substring(0, 19);
+        return recibo.replace("-", "")
+                .replace(":", "")
+                .replace("T", "-");
+    }
+}
@@ -0,0 +1,101 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.service.GeradorDeRecibo;
+import com.balabenute.demo_park_api.service.GeradorDeReciboSequencial;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class GeradorDeReciboIT {
+
+    private static final int THREADS = 8;
+    private static final int RECIBOS_POR_THREAD = 500_000;
+
+    @Test
+    public void gerarRecibos_ComVariasThreads_RetornarRecibosUnicos() throws Exception {
+        GeradorDeRecibo gerador = new GeradorDeReciboSequencial(1);
+        long[] recibos = gerarEmParalelo(gerador);
+
+        Arrays.sort(recibos);
+        for (int i = 1; i < recibos.length; i++) {
+            org.assertj.core.api.Assertions.assertThat(recibos[i]).isNotEqualTo(recibos[i - 1]);
+        }
+    }
+
+    @Test
+    public void gerarRecibos_ComInstanciasDiferentes_RetornarRecibosUnicos() throws Exception {
+        long[] no1 = gerarEmParalelo(new GeradorDeReciboSequencial(1));
+        long[] no2 = gerarEmParalelo(new GeradorDeReciboSequencial(2));
+
+        long[] recibos = Arrays.copyOf(no1, no1.length + no2.length);
+        System.arraycopy(no2, 0, recibos, no1.length, no2.length);
+        Arrays.sort(recibos);
+        for (int i = 1; i < recibos.length; i++) {
+            org.assertj.core.api.Assertions.assertThat(recibos[i]).isNotEqualTo(recibos[i - 1]);
+        }
+    }
+
+    @Test
+    public void gerarRecibo_RetornarValorQueCabeNaColuna() {
+        String recibo = new GeradorDeReciboSequencial(1023).gerar();
+
+        org.assertj.core.api.Assertions.assertThat(recibo).hasSizeLessThanOrEqualTo(15);
+        org.assertj.core.api.Assertions.assertThat(recibo).matches("[0-9A-Z]+");
+    }
+
+    @Test
+    public void gerarRecibo_DepoisDeReciboGravadoNoFuturo_RetornarReciboPosterior() {
+        GeradorDeRecibo gerador = new GeradorDeReciboSequencial(1);
+        // Recibo de outra instância, uma hora à frente, como após um relógio adiantado e corrigido.
+        long milissegundo = System.currentTimeMillis() - Instant.parse("2024-01-01T00:00:00Z").toEpochMilli() + 3_600_000L;
+        String gravado = Long.toString((milissegundo << 22) | (2L << 12) | 4095, 36).toUpperCase();
+
+        gerador.continuarApos(gravado);
+
+        org.assertj.core.api.Assertions.assertThat(Long.parseLong(gerador.gerar(), 36))
+                .isGreaterThan(Long.parseLong(gravado, 36));
+    }
+
+    @Test
+    public void continuarApos_ComReciboEmOutroFormato_Ignorar() {
+        GeradorDeRecibo gerador = new GeradorDeReciboSequencial(1);
+
+        gerador.continuarApos("20230315-101500");
+
+        org.assertj.core.api.Assertions.assertThat(gerador.gerar()).hasSize(13);
+    }
+
+    @Test
+    public void criarGerador_ComNoInvalido_LancarIllegalArgumentException() {
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> new GeradorDeReciboSequencial(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long[] gerarEmParalelo(GeradorDeRecibo gerador) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                largada.await();
+                long[] gerados = new long[RECIBOS_POR_THREAD];
+                for (int i = 0; i < RECIBOS_POR_THREAD; i++) {
+                    gerados[i] = Long.parseLong(gerador.gerar(), 36);
+                }
+                return gerados;
+            }));
+        }
+        largada.countDown();
+
+        long[] recibos = new long[THREADS * RECIBOS_POR_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(futures.get(t).get(1, TimeUnit.MINUTES), 0, recibos, t * RECIBOS_POR_THREAD, RECIBOS_POR_THREAD);
+        }
+        executor.shutdown();
+        return recibos;
+    }
+}
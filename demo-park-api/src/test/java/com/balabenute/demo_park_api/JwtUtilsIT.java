@@ -0,0 +1,59 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.jwt.CacheDeTokens;
+import com.balabenute.demo_park_api.jwt.JwtUserDetails;
+import com.balabenute.demo_park_api.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+public class JwtUtilsIT {
+
+    @Test
+    public void getClaimsFromToken_ComTokenValidoEAlterado_RetornarClaimsOuNulo() {
+        String token = JwtUtils.JWT_BEARER + JwtUtils.createToken(100L, "ana@email.com", "ADMIN").getToken();
+
+        Claims claims = JwtUtils.getClaimsFromToken(token);
+        org.assertj.core.api.Assertions.assertThat(claims).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(claims.getSubject()).isEqualTo("ana@email.com");
+        org.assertj.core.api.Assertions.assertThat(claims.get("role")).isEqualTo("ADMIN");
+
+        String alterado = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        org.assertj.core.api.Assertions.assertThat(JwtUtils.getClaimsFromToken(alterado)).isNull();
+        org.assertj.core.api.Assertions.assertThat(JwtUtils.isTokenValid(alterado)).isFalse();
+    }
+
+    @Test
+    public void jwtUserDetailsOf_ComClaimsDoToken_RetornarUsuarioSemConsultarBanco() {
+        Claims claims = JwtUtils.getClaimsFromToken(JwtUtils.createToken(101L, "bob@email.com", "CLIENTE").getToken());
+
+        JwtUserDetails user = JwtUserDetails.of(claims);
+        org.assertj.core.api.Assertions.assertThat(user).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(user.getId()).isEqualTo(101L);
+        org.assertj.core.api.Assertions.assertThat(user.getUsername()).isEqualTo("bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(user.getRole()).isEqualTo("ROLE_CLIENTE");
+        org.assertj.core.api.Assertions.assertThat(user.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_CLIENTE");
+
+        Claims semId = JwtUtils.getClaimsFromToken(JwtUtils.createToken(null, "bob@email.com", "CLIENTE").getToken());
+        org.assertj.core.api.Assertions.assertThat(JwtUserDetails.of(semId)).isNull();
+    }
+
+    @Test
+    public void obter_ComTokenRepetido_RetornarClaimsDoCacheAteLimite() throws InterruptedException {
+        CacheDeTokens cache = new CacheDeTokens(1);
+        String ana = JwtUtils.JWT_BEARER + JwtUtils.createToken(100L, "ana@email.com", "ADMIN").getToken();
+        // A expiração tem precisão de segundos; acima do limite sai o token que expira primeiro.
+        Thread.sleep(1100);
+        String bob = JwtUtils.JWT_BEARER + JwtUtils.createToken(101L, "bob@email.com", "CLIENTE").getToken();
+
+        Claims primeira = cache.obter(ana);
+        org.assertj.core.api.Assertions.assertThat(primeira.getSubject()).isEqualTo("ana@email.com");
+        org.assertj.core.api.Assertions.assertThat(cache.obter(ana)).isSameAs(primeira);
+
+        org.assertj.core.api.Assertions.assertThat(cache.obter(bob).getSubject()).isEqualTo("bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(cache.obter(ana)).isNotSameAs(primeira);
+
+        org.assertj.core.api.Assertions.assertThat(cache.obter(ana + "x")).isNull();
+    }
+}
@@ -0,0 +1,78 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.entity.ClienteVaga;
+import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.web.dto.EstacionamentoCreateDto;
+import com.balabenute.demo_park_api.web.dto.EstacionamentoResponseDto;
+import com.balabenute.demo_park_api.web.dto.mapper.ClienteVagaMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o {@link ClienteVagaMapper} com o ModelMapper usado antes, tanto criado a cada chamada (como
+ * era feito) quanto compartilhado. Executar com
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=MapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private EstacionamentoCreateDto createDto;
+    private ClienteVaga clienteVaga;
+
+    @Setup
+    public void setup() {
+        createDto = EstacionamentoCreateDto.builder()
+                .placa("ABC-1234").marca("FIAT").modelo("PALIO").cor("AZUL").clienteCpf("39166418089").build();
+
+        Vaga vaga = new Vaga();
+        vaga.setCodigo("A-01");
+        clienteVaga = ClienteVagaMapper.toClienteVaga(createDto);
+        clienteVaga.setVaga(vaga);
+        clienteVaga.setRecibo("0LX5K2M3N4P5Q");
+        clienteVaga.setDataEntrada(LocalDateTime.of(2024, 3, 13, 10, 15, 27));
+        clienteVaga.setDataSaida(LocalDateTime.of(2024, 3, 13, 12, 40, 3));
+        clienteVaga.setValor(new BigDecimal("23.25"));
+        clienteVaga.setDesconto(BigDecimal.ZERO);
+    }
+
+    @Benchmark
+    public ClienteVaga toClienteVaga() {
+        return ClienteVagaMapper.toClienteVaga(createDto);
+    }
+
+    @Benchmark
+    public ClienteVaga toClienteVaga_ModelMapperPorChamada() {
+        return new ModelMapper().map(createDto, ClienteVaga.class);
+    }
+
+    @Benchmark
+    public ClienteVaga toClienteVaga_ModelMapperCompartilhado() {
+        return modelMapper.map(createDto, ClienteVaga.class);
+    }
+
+    @Benchmark
+    public EstacionamentoResponseDto toDto() {
+        return ClienteVagaMapper.toDto(clienteVaga);
+    }
+
+    @Benchmark
+    public EstacionamentoResponseDto toDto_ModelMapperPorChamada() {
+        return new ModelMapper().map(clienteVaga, EstacionamentoResponseDto.class);
+    }
+
+    @Benchmark
+    public EstacionamentoResponseDto toDto_ModelMapperCompartilhado() {
+        return modelMapper.map(clienteVaga, EstacionamentoResponseDto.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.exception.ServicoSobrecarregadoException;
+import com.balabenute.demo_park_api.service.ProcessadorDeSenhas;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessadorDeSenhasIT {
+
+    @Test
+    public void executar_ComFilaCheia_RecusarComServicoSobrecarregado() throws Exception {
+        ProcessadorDeSenhas processador = new ProcessadorDeSenhas(4, 1, 1);
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            String hash = processador.encode("123456");
+            CompletableFuture<Boolean> ocupada = processador.executar(() -> {
+                iniciada.countDown();
+                try {
+                    return liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            iniciada.await();
+            CompletableFuture<Boolean> naFila = processador.executar(() -> processador.matches("123456", hash));
+
+            org.assertj.core.api.Assertions.assertThatThrownBy(() -> processador.matches("123456", hash))
+                    .isInstanceOf(ServicoSobrecarregadoException.class);
+
+            liberar.countDown();
+            org.assertj.core.api.Assertions.assertThat(ocupada.get()).isTrue();
+            org.assertj.core.api.Assertions.assertThat(naFila.get()).isTrue();
+
+            ProcessadorDeSenhas.Metricas metricas = processador.consultarMetricas();
+            org.assertj.core.api.Assertions.assertThat(metricas.operacoes()).isEqualTo(2);
+            org.assertj.core.api.Assertions.assertThat(metricas.rejeitadas()).isEqualTo(1);
+        } finally {
+            liberar.countDown();
+            processador.encerrar();
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.entity.Cliente;
+import com.balabenute.demo_park_api.entity.ClienteVaga;
+import com.balabenute.demo_park_api.service.ArmazenamentoDeRelatorios;
+import com.balabenute.demo_park_api.service.CacheDeRelatorios;
+import com.balabenute.demo_park_api.service.EstacionamentoService;
+import com.balabenute.demo_park_api.service.JasperService;
+import com.balabenute.demo_park_api.utils.ArquivoUtils;
+import com.balabenute.demo_park_api.web.dto.ExtratoProgressoResponseDto;
+import com.balabenute.demo_park_api.web.dto.RelatorioJobResponseDto;
+import com.zaxxer.hikari.HikariDataSource;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/relatorios/relatorios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/relatorios/relatorios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class RelatorioIT {
+
+    @Autowired
+    WebTestClient testClient;
+    @Autowired
+    JasperService jasperService;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    CacheDeRelatorios cacheDeRelatorios;
+    @Autowired
+    EstacionamentoService estacionamentoService;
+    @Value("${estacionamento.extrato.diretorio:${java.io.tmpdir}/demo-park-extratos}")
+    Path diretorioDeExtratos;
+
+    @Test
+    public void gerarRelatorio_ComClienteAutenticado_RetornarPdfComStatus200() {
+        byte[] pdf = testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "cliente1000@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_PDF)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(pdf).isNotEmpty();
+        org.assertj.core.api.Assertions.assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    public void gerarRelatorio_ComETagAtual_RetornarStatus304AteONovoCheckIn() {
+        Consumer<HttpHeaders> cliente =
+                JwtAuthentication.getHeaderAuthorization(testClient, "cliente1002@email.com", "123456");
+        String etag = testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio")
+                .headers(cliente)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+
+        testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio")
+                .headers(cliente)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        long emCache = cacheDeRelatorios.getTotal();
+        org.assertj.core.api.Assertions.assertThat(emCache).isPositive();
+
+        Cliente dono = new Cliente();
+        dono.setCpf("00000001002");
+        ClienteVaga estacionamento = new ClienteVaga();
+        estacionamento.setCliente(dono);
+        estacionamento.setPlaca("NOV-1002");
+        estacionamento.setMarca("FIAT");
+        estacionamento.setModelo("UNO");
+        estacionamento.setCor("AZUL");
+        estacionamentoService.checkIn(estacionamento);
+        org.assertj.core.api.Assertions.assertThat(cacheDeRelatorios.getTotal()).isLessThan(emCache);
+
+        String novaEtag = testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio")
+                .headers(cliente)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+        org.assertj.core.api.Assertions.assertThat(novaEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void gerarPdf_ComVirtualizador_ExportarParaOStreamERemoverArquivoDeTroca() throws Exception {
+        Path troca = Files.createTempDirectory("relatorios-troca");
+        JasperService comVirtualizador = new JasperService(
+                new DefaultResourceLoader(), dataSource, 1, 1, 10_000, 1, troca.toString());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        comVirtualizador.gerarPdf("00000001000", saida);
+
+        org.assertj.core.api.Assertions.assertThat(new String(saida.toByteArray(), 0, 5)).isEqualTo("%PDF-");
+        try (Stream<Path> arquivos = Files.list(troca)) {
+            org.assertj.core.api.Assertions.assertThat(arquivos).isEmpty();
+        }
+    }
+
+    @Test
+    public void gerarPdf_ComExtratosOcupandoSuaCota_PreencherSemEsperar() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger conexoes = new AtomicInteger();
+        // A primeira conexão (a do extrato) fica presa até o fim do teste.
+        DataSource lento = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (conexoes.incrementAndGet() == 1) {
+                    try {
+                        liberar.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getConnection();
+            }
+        };
+        JasperService jasper = new JasperService(
+                new DefaultResourceLoader(), lento, 2, 5, 100, 0, "");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<Void>> extratos = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                extratos.add(CompletableFuture.runAsync(() -> jasper.gerarExtratoPdf("00000001000",
+                        YearMonth.of(2023, 3), OutputStream.nullOutputStream()), executor));
+            }
+            while (conexoes.get() == 0) {
+                Thread.sleep(10);
+            }
+
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            jasper.gerarPdf("00000001000", saida);
+            org.assertj.core.api.Assertions.assertThat(new String(saida.toByteArray(), 0, 5)).isEqualTo("%PDF-");
+            // O segundo extrato ainda espera pela cota, que o primeiro não devolveu.
+            org.assertj.core.api.Assertions.assertThat(conexoes.get()).isEqualTo(2);
+
+            liberar.countDown();
+            CompletableFuture.allOf(extratos.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            org.assertj.core.api.Assertions.assertThat(conexoes.get()).isEqualTo(3);
+        } finally {
+            liberar.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void gerarRelatorio_Com100RelatoriosEmParalelo_RetornarDadosDeCadaClienteSemVazarConexoes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(100);
+        try {
+            List<CompletableFuture<List<String>>> relatorios = new ArrayList<>();
+            for (int i = 1000; i < 1100; i++) {
+                String cpf = String.format("%011d", i);
+                relatorios.add(CompletableFuture.supplyAsync(() -> textos(jasperService.preencher(cpf)), executor));
+            }
+
+            for (int i = 1000; i < 1100; i++) {
+                String sufixo = "-" + i;
+                List<String> placas = relatorios.get(i - 1000).get().stream()
+                        .filter(texto -> texto.matches("RE[LS]-\\d+"))
+                        .toList();
+                org.assertj.core.api.Assertions.assertThat(placas).containsExactlyInAnyOrder("REL" + sufixo, "RES" + sufixo);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        org.assertj.core.api.Assertions.assertThat(
+                dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    public void solicitarRelatorio_ComJobConcluido_BaixarPdfSomenteDoProprioCliente() throws Exception {
+        RelatorioJobResponseDto job = testClient
+                .post()
+                .uri("/api/v1/estacionamentos/relatorio/jobs")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "cliente1000@email.com", "123456"))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().exists(HttpHeaders.LOCATION)
+                .expectBody(RelatorioJobResponseDto.class)
+                .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(job).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(job.getStatus()).isIn("PENDENTE", "PROCESSANDO");
+
+        Consumer<HttpHeaders> cliente =
+                JwtAuthentication.getHeaderAuthorization(testClient, "cliente1000@email.com", "123456");
+        RelatorioJobResponseDto status = job;
+        for (int i = 0; i < 100 && !status.getStatus().equals("CONCLUIDO"); i++) {
+            Thread.sleep(100);
+            status = testClient
+                    .get()
+                    .uri("/api/v1/estacionamentos/relatorio/jobs/{id}", job.getId())
+                    .headers(cliente)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(RelatorioJobResponseDto.class)
+                    .returnResult().getResponseBody();
+        }
+        org.assertj.core.api.Assertions.assertThat(status.getStatus()).isEqualTo("CONCLUIDO");
+        org.assertj.core.api.Assertions.assertThat(status.getTamanho()).isPositive();
+
+        byte[] pdf = testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio/jobs/{id}/pdf", job.getId())
+                .headers(cliente)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_PDF)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+        org.assertj.core.api.Assertions.assertThat(pdf).hasSize(status.getTamanho().intValue());
+        org.assertj.core.api.Assertions.assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+
+        testClient
+                .get()
+                .uri("/api/v1/estacionamentos/relatorio/jobs/{id}", job.getId())
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "cliente1001@email.com", "123456"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void gerarExtratos_DoMesParaTodosOsClientes_GerarUmPdfPorClienteEContinuarSemRefazer() throws Exception {
+        FileSystemUtils.deleteRecursively(diretorioDeExtratos.resolve("2023-03"));
+        Consumer<HttpHeaders> admin =
+                JwtAuthentication.getHeaderAuthorization(testClient, "admin@email.com", "123456");
+
+        testClient
+                .post()
+                .uri("/api/v1/extratos/2023-03")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "cliente1000@email.com", "123456"))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        ExtratoProgressoResponseDto primeira = gerarExtratos(admin);
+        org.assertj.core.api.Assertions.assertThat(primeira.getTotal()).isEqualTo(100);
+        org.assertj.core.api.Assertions.assertThat(primeira.getGerados()).isEqualTo(100);
+        org.assertj.core.api.Assertions.assertThat(primeira.getFalhas()).isZero();
+
+        byte[] zip = testClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build()
+                .get()
+                .uri("/api/v1/extratos/2023-03/zip")
+                .headers(admin)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+        List<String> arquivos = new ArrayList<>();
+        try (ZipInputStream entrada = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = entrada.getNextEntry(); entry != null; entry = entrada.getNextEntry()) {
+                arquivos.add(entry.getName());
+            }
+        }
+        org.assertj.core.api.Assertions.assertThat(arquivos).hasSize(100).contains("00000001000.pdf", "00000001099.pdf");
+
+        ExtratoProgressoResponseDto retomada = gerarExtratos(admin);
+        org.assertj.core.api.Assertions.assertThat(retomada.getExistentes()).isEqualTo(100);
+        org.assertj.core.api.Assertions.assertThat(retomada.getGerados()).isZero();
+    }
+
+    @Test
+    public void gerarExtratos_DoMesAtualOuFuturo_RetornarErrorStatus422() {
+        Consumer<HttpHeaders> admin =
+                JwtAuthentication.getHeaderAuthorization(testClient, "admin@email.com", "123456");
+
+        for (YearMonth mes : List.of(YearMonth.now(), YearMonth.now().plusMonths(1))) {
+            testClient
+                    .post()
+                    .uri("/api/v1/extratos/{mes}", mes.toString())
+                    .headers(admin)
+                    .exchange()
+                    .expectStatus().isEqualTo(422)
+                    .expectBody()
+                    .jsonPath("status").isEqualTo("422")
+                    .jsonPath("path").isEqualTo("/api/v1/extratos/" + mes);
+        }
+        org.assertj.core.api.Assertions.assertThat(diretorioDeExtratos.resolve(YearMonth.now().toString())).doesNotExist();
+    }
+
+    private ExtratoProgressoResponseDto gerarExtratos(Consumer<HttpHeaders> admin) throws InterruptedException {
+        ExtratoProgressoResponseDto progresso = testClient
+                .post()
+                .uri("/api/v1/extratos/2023-03")
+                .headers(admin)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody(ExtratoProgressoResponseDto.class)
+                .returnResult().getResponseBody();
+        for (int i = 0; i < 300 && progresso.getStatus().equals("EM_ANDAMENTO"); i++) {
+            Thread.sleep(100);
+            progresso = testClient
+                    .get()
+                    .uri("/api/v1/extratos/2023-03")
+                    .headers(admin)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ExtratoProgressoResponseDto.class)
+                    .returnResult().getResponseBody();
+        }
+        org.assertj.core.api.Assertions.assertThat(progresso.getStatus()).isEqualTo("CONCLUIDO");
+        org.assertj.core.api.Assertions.assertThat(progresso.getProcessados()).isEqualTo(100);
+        return progresso;
+    }
+
+    @Test
+    public void gravarRelatorio_AcimaDoTamanhoMaximo_RemoverOsMaisAntigos() throws Exception {
+        Path diretorio = Files.createTempDirectory("relatorios");
+        ArmazenamentoDeRelatorios armazenamento = new ArmazenamentoDeRelatorios(diretorio, DataSize.ofBytes(25));
+
+        for (String id : List.of("a", "b", "c")) {
+            armazenamento.gravar(id, saida -> {
+                try {
+                    saida.write(new byte[10]);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+
+        org.assertj.core.api.Assertions.assertThat(armazenamento.existe("a")).isFalse();
+        org.assertj.core.api.Assertions.assertThat(armazenamento.existe("b")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(armazenamento.existe("c")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(armazenamento.getTotal()).isEqualTo(20);
+        org.assertj.core.api.Assertions.assertThat(diretorio.resolve("a.pdf")).doesNotExist();
+    }
+
+    @Test
+    public void obterRelatorio_ComRemocaoAntesOuDepoisDaAbertura_LerCompletoOuRetornarVazio() throws Exception {
+        Path diretorio = Files.createTempDirectory("relatorios");
+        ArmazenamentoDeRelatorios armazenamento = new ArmazenamentoDeRelatorios(diretorio, DataSize.ofMegabytes(1));
+        Consumer<OutputStream> escritor = saida -> {
+            try {
+                saida.write("pdf".getBytes());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        armazenamento.gravar("a", escritor);
+        armazenamento.gravar("b", escritor);
+
+        try (InputStream pdf = armazenamento.obter("a").orElseThrow()) {
+            armazenamento.remover("a");
+            org.assertj.core.api.Assertions.assertThat(pdf.readAllBytes()).isEqualTo("pdf".getBytes());
+        }
+        org.assertj.core.api.Assertions.assertThat(armazenamento.obter("a")).isEmpty();
+
+        // Arquivo apagado depois de consultado o mapa e antes da abertura.
+        Files.delete(diretorio.resolve("b.pdf"));
+        org.assertj.core.api.Assertions.assertThat(armazenamento.existe("b")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(armazenamento.obter("b")).isEmpty();
+    }
+
+    @Test
+    public void gravarArquivo_ComFalhaNaEscrita_NaoDeixarArquivoIncompleto() throws Exception {
+        Path destino = Files.createTempDirectory("relatorios").resolve("a.pdf");
+
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> ArquivoUtils.gravar(destino, saida -> {
+            throw new IllegalStateException("falha no preenchimento");
+        })).isInstanceOf(IllegalStateException.class);
+
+        org.assertj.core.api.Assertions.assertThat(destino).doesNotExist();
+        org.assertj.core.api.Assertions.assertThat(destino.resolveSibling("a.pdf.tmp")).doesNotExist();
+    }
+
+    @Test
+    public void criarArmazenamento_ComArquivosNoDiretorio_ApagarSomenteOsRelatorios() throws Exception {
+        Path diretorio = Files.createTempDirectory("relatorios");
+        Files.write(diretorio.resolve("antigo.pdf"), new byte[10]);
+        Files.write(diretorio.resolve("antigo.pdf.tmp"), new byte[10]);
+        Files.write(diretorio.resolve("outro.txt"), new byte[10]);
+        Files.createDirectories(diretorio.resolve("sub"));
+
+        new ArmazenamentoDeRelatorios(diretorio, DataSize.ofBytes(25));
+
+        org.assertj.core.api.Assertions.assertThat(diretorio.resolve("antigo.pdf")).doesNotExist();
+        org.assertj.core.api.Assertions.assertThat(diretorio.resolve("antigo.pdf.tmp")).doesNotExist();
+        org.assertj.core.api.Assertions.assertThat(diretorio.resolve("outro.txt")).exists();
+        org.assertj.core.api.Assertions.assertThat(diretorio.resolve("sub")).isDirectory();
+    }
+
+    @Test
+    public void obterRelatorioEmCache_ComInvalidacaoAntesDaLeitura_LerConteudoCompleto() throws Exception {
+        CacheDeRelatorios cache = new CacheDeRelatorios(Files.createTempDirectory("relatorios-cache"),
+                DataSize.ofMegabytes(1));
+        String chave = cache.chave("39166418089", "1");
+        Consumer<OutputStream> gerador = saida -> {
+            try {
+                saida.write("pdf".getBytes());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        cache.obter(chave, "39166418089", gerador).close();
+
+        try (InputStream pdf = cache.obter(chave, "39166418089", gerador)) {
+            cache.invalidar("39166418089");
+            org.assertj.core.api.Assertions.assertThat(cache.getTotal()).isZero();
+            org.assertj.core.api.Assertions.assertThat(pdf.readAllBytes()).isEqualTo("pdf".getBytes());
+        }
+    }
+
+    private static List<String> textos(JasperPrint print) {
+        List<String> textos = new ArrayList<>();
+        for (JRPrintPage page : print.getPages()) {
+            for (JRPrintElement element : page.getElements()) {
+                if (element instanceof JRPrintText text && text.getFullText() != null) {
+                    textos.add(text.getFullText().trim());
+                }
+            }
+        }
+        return textos;
+    }
+}
@@ -1,5 +1,8 @@
 package com.balabenute.demo_park_api;
 
+import com.balabenute.demo_park_api.entity.Usuario;
+import com.balabenute.demo_park_api.service.CacheDeUsuarios;
+import com.balabenute.demo_park_api.service.UsuarioService;
 import com.balabenute.demo_park_api.web.dto.UsuarioCreateDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioResponseDto;
 import com.balabenute.demo_park_api.web.dto.UsuarioSenhaDto;
@@ -20,6 +23,10 @@ public class UsuarioIT {
 
     @Autowired
     WebTestClient testClient;
+    @Autowired
+    UsuarioService usuarioService;
+    @Autowired
+    CacheDeUsuarios cacheDeUsuarios;
 
     @Test
     public void createUsuario_ComUsernameEPasswordValidos_RetornarUsuarioCriadoComStatus201() {
@@ -235,6 +242,60 @@ public class UsuarioIT {
                 .expectStatus().isNoContent();
     }
 
+    @Test
+    public void editarSenha_ComUsuarioEmCache_InvalidarUsuarioDoCache() {
+        cacheDeUsuarios.invalidar("bob@email.com");
+        Usuario emCache = usuarioService.buscarPorUsernameEmCache("bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(usuarioService.buscarPorUsernameEmCache("bob@email.com")).isSameAs(emCache);
+
+        testClient
+                .patch()
+                .uri("/api/v1/usuarios/101")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "bob@email.com", "123456"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UsuarioSenhaDto("123456", "654321", "654321"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Usuario recarregado = usuarioService.buscarPorUsernameEmCache("bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(recarregado).isNotSameAs(emCache);
+        org.assertj.core.api.Assertions.assertThat(recarregado.getPassword()).isNotEqualTo(emCache.getPassword());
+    }
+
+    @Test
+    public void revogarTokens_ComUsuarioAdmin_RecusarTokensEmitidosAntesComStatus401() {
+        java.util.function.Consumer<org.springframework.http.HttpHeaders> tokenAntigo =
+                JwtAuthentication.getHeaderAuthorization(testClient, "bob@email.com", "123456");
+
+        testClient
+                .post()
+                .uri("/api/v1/usuarios/101/tokens/revogacao")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "bob@email.com", "123456"))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        testClient
+                .post()
+                .uri("/api/v1/usuarios/101/tokens/revogacao")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        testClient
+                .get()
+                .uri("/api/v1/usuarios/101")
+                .headers(tokenAntigo)
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        testClient
+                .get()
+                .uri("/api/v1/usuarios/101")
+                .headers(JwtAuthentication.getHeaderAuthorization(testClient, "bob@email.com", "123456"))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     public void editarSenha_ComUsuariosDiferentes_RetornarErrorMessageComStatus403() {
         ErrorMessage responseBody = testClient
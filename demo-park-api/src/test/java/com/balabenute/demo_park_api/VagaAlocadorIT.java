@@ -0,0 +1,124 @@
+package com.balabenute.demo_park_api;
+
+import com.balabenute.demo_park_api.entity.Vaga;
+import com.balabenute.demo_park_api.service.VagaAlocador;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class VagaAlocadorIT {
+
+    private static final int THREADS = 8;
+    private static final int VAGAS = 10_000;
+
+    @Test
+    public void alocar_ComVariasThreads_NuncaRetornarAMesmaVaga() throws Exception {
+        VagaAlocador alocador = new VagaAlocador();
+        List<Vaga> vagas = new ArrayList<>();
+        for (long id = 1; id <= VAGAS; id++) {
+            Vaga vaga = new Vaga();
+            vaga.setId(id);
+            vaga.setCodigo("V" + id);
+            vaga.setStatus(Vaga.StatusVaga.LIVRE);
+            vagas.add(vaga);
+        }
+        alocador.recarregar(vagas);
+
+        List<Long> alocadas = alocarEmParalelo(alocador);
+
+        org.assertj.core.api.Assertions.assertThat(alocadas).hasSize(VAGAS);
+        org.assertj.core.api.Assertions.assertThat(new HashSet<>(alocadas)).hasSize(VAGAS);
+        org.assertj.core.api.Assertions.assertThat(alocador.alocar()).isNull();
+    }
+
+    @Test
+    public void alocar_ComVagasRegistradasDepoisDaCarga_NuncaRetornarAMesmaVaga() throws Exception {
+        VagaAlocador alocador = new VagaAlocador();
+        for (long id = 1; id <= VAGAS; id++) {
+            alocador.registrar(id, "V" + id, true);
+        }
+
+        List<Long> alocadas = alocarEmParalelo(alocador);
+
+        org.assertj.core.api.Assertions.assertThat(alocadas).hasSize(VAGAS);
+        org.assertj.core.api.Assertions.assertThat(new HashSet<>(alocadas)).hasSize(VAGAS);
+    }
+
+    @Test
+    public void alocar_ComVagaLiberada_RetornarSomenteAVagaLiberada() {
+        VagaAlocador alocador = new VagaAlocador();
+        alocador.registrar(1L, "A-01", false);
+        alocador.registrar(2L, "A-02", false);
+
+        org.assertj.core.api.Assertions.assertThat(alocador.alocar()).isNull();
+
+        alocador.liberar(2L, "A-02");
+
+        org.assertj.core.api.Assertions.assertThat(alocador.alocar()).isEqualTo(new VagaAlocador.VagaAlocada(2L, "A-02"));
+        org.assertj.core.api.Assertions.assertThat(alocador.alocar()).isNull();
+    }
+
+    @Test
+    public void liberar_DuranteOCrescimentoDoMapa_NaoPerderAVagaLiberada() throws Exception {
+        VagaAlocador alocador = new VagaAlocador();
+        for (long id = 1; id <= 64; id++) {
+            alocador.registrar(id, "V" + id, false);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch largada = new CountDownLatch(1);
+        Future<?> inclusoes = executor.submit(() -> {
+            largada.await();
+            for (long id = 65; id <= VAGAS; id++) {
+                alocador.registrar(id, "V" + id, false);
+            }
+            return null;
+        });
+        Future<?> liberacoes = executor.submit(() -> {
+            largada.await();
+            for (long id = 1; id <= 64; id++) {
+                alocador.liberar(id, "V" + id);
+            }
+            return null;
+        });
+        largada.countDown();
+        inclusoes.get(1, TimeUnit.MINUTES);
+        liberacoes.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        List<Long> alocadas = new ArrayList<>();
+        VagaAlocador.VagaAlocada vaga;
+        while ((vaga = alocador.alocar()) != null) {
+            alocadas.add(vaga.id());
+        }
+        org.assertj.core.api.Assertions.assertThat(alocadas).hasSize(64).allMatch(id -> id <= 64);
+    }
+
+    private List<Long> alocarEmParalelo(VagaAlocador alocador) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                largada.await();
+                List<Long> alocadas = new ArrayList<>();
+                VagaAlocador.VagaAlocada vaga;
+                while ((vaga = alocador.alocar()) != null) {
+                    alocadas.add(vaga.id());
+                }
+                return alocadas;
+            }));
+        }
+        largada.countDown();
+
+        List<Long> alocadas = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            alocadas.addAll(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        return alocadas;
+    }
+}
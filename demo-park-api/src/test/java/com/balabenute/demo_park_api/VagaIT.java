@@ -1,5 +1,6 @@
 package com.balabenute.demo_park_api;
 
+import com.balabenute.demo_park_api.service.VagaService;
 import com.balabenute.demo_park_api.web.dto.VagaCreateDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.function.Consumer;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Sql(scripts = "/sql/vagas/vagas-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 @Sql(scripts = "/sql/vagas/vagas-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
@@ -17,6 +20,9 @@ public class VagaIT {
     @Autowired
     WebTestClient testClient;
 
+    @Autowired
+    VagaService vagaService;
+
     @Test
     public void criarVaga_ComDadosValidos_RetornarLocationStatus201() {
         testClient
@@ -132,4 +138,51 @@ public class VagaIT {
                 .jsonPath("method").isEqualTo("POST")
                 .jsonPath("path").isEqualTo("/api/v1/vagas");
     }
+
+    @Test
+    public void consultarOcupacao_ComToken_RetornarContadoresStatus200() {
+        vagaService.reconciliarOcupacao();
+        Consumer<HttpHeaders> authorization = JwtAuthentication.getHeaderAuthorization(testClient, "ana@email.com", "123456");
+
+        testClient
+                .get()
+                .uri("/api/v1/vagas/ocupacao")
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("total").isEqualTo(4)
+                .jsonPath("livres").isEqualTo(3)
+                .jsonPath("ocupadas").isEqualTo(1)
+                .jsonPath("checkInsUltimoMinuto").exists()
+                .jsonPath("checkOutsUltimoMinuto").exists();
+
+        testClient
+                .post()
+                .uri("/api/v1/vagas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(authorization)
+                .bodyValue(new VagaCreateDto("A-05", "LIVRE"))
+                .exchange()
+                .expectStatus().isCreated();
+
+        testClient
+                .get()
+                .uri("/api/v1/vagas/ocupacao")
+                .headers(authorization)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("total").isEqualTo(5)
+                .jsonPath("livres").isEqualTo(4);
+    }
+
+    @Test
+    public void consultarOcupacao_SemToken_RetornarErrorStatus401() {
+        testClient
+                .get()
+                .uri("/api/v1/vagas/ocupacao")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
 }
@@ -0,0 +1,4 @@
+DELETE FROM CLIENTES_TEM_VAGAS;
+DELETE FROM CLIENTES;
+DELETE FROM VAGAS;
+DELETE FROM USUARIOS;
\ No newline at end of file
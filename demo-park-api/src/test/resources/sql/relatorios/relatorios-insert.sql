@@ -0,0 +1,18 @@
+insert into USUARIOS (id, username, password, role)
+    values (999, 'admin@email.com', '$2a$12$oPX8PZK6QVS1BHOicKkJTeZzgn.b9QSQlwpQKM1Mn4GEMreAOgE/i', 'ROLE_ADMIN');
+insert into USUARIOS (id, username, password, role)
+    select x, 'cliente' || x || '@email.com', '$2a$12$oPX8PZK6QVS1BHOicKkJTeZzgn.b9QSQlwpQKM1Mn4GEMreAOgE/i', 'ROLE_CLIENTE'
+    from system_range(1000, 1099);
+
+insert into CLIENTES (id, nome, cpf, id_usuario)
+    select x, 'Cliente ' || x, lpad(x, 11, '0'), x
+    from system_range(1000, 1099);
+
+insert into vagas (id, codigo, status) values (100, 'A-01', 'LIVRE');
+
+insert into clientes_tem_vagas (numero_recibo, placa, marca, modelo, cor, data_entrada, data_saida, valor, desconto, id_cliente, id_vaga)
+    select '20230313-' || x, 'REL-' || x, 'FIAT', 'PALIO', 'VERDE', '2023-03-13 10:15:00', '2023-03-13 11:20:00', 11.00, 0.00, x, 100
+    from system_range(1000, 1099);
+insert into clientes_tem_vagas (numero_recibo, placa, marca, modelo, cor, data_entrada, data_saida, valor, desconto, id_cliente, id_vaga)
+    select '20230314-' || x, 'RES-' || x, 'FIAT', 'SIENA', 'BRANCO', '2023-03-14 10:15:00', '2023-03-14 10:30:00', 5.00, 0.00, x, 100
+    from system_range(1000, 1099);